@@ -4,6 +4,15 @@ package com.michelin.avroxmlmapper.exception;
  * Exception thrown when an error occurs during the mapping process.
  */
 public class AvroJsonMapperException extends RuntimeException {
+    /**
+     * Constructor without cause
+     *
+     * @param message The message
+     */
+    public AvroJsonMapperException(String message) {
+        super(message);
+    }
+
     /**
      * Default constructor
      *
@@ -3,10 +3,14 @@ package com.michelin.avroxmlmapper.mapper;
 import com.fasterxml.jackson.databind.JsonNode;
 import org.apache.avro.specific.SpecificRecordBase;
 
+import java.util.ArrayList;
+import java.util.Set;
+
 import static com.michelin.avroxmlmapper.constants.AvroJsonMapperConstants.JSONPATH_DEFAULT;
 import static com.michelin.avroxmlmapper.mapper.AvroToJsonUtils.createDocumentFromAvro;
 import static com.michelin.avroxmlmapper.utility.GenericUtils.jsonnodeToString;
 import static com.michelin.avroxmlmapper.utility.GenericUtils.stringToDocument;
+import static com.michelin.avroxmlmapper.utility.GenericUtils.stringToJsonNode;
 
 
 /**
@@ -96,4 +100,91 @@ public final class AvroJsonMapper {
         return createDocumentFromAvro(record, xpathSelector);
     }
 
+    /* ************************************** */
+    /* Apply JSON patches to an existing Avro */
+    /* ************************************** */
+
+    /**
+     * <p>Applies a JSON Merge Patch (RFC 7396), expressed on the JSON side of the mapping, to an existing SpecificRecordBase object.
+     * Only the fields touched by the patch are converted and updated, in place. The mapping is based on the "jsonpath" property defined for each of the fields in the original avsc file.</p>
+     * <p>See README.md for more details.</p>
+     *
+     * @param record        The SpecificRecordBase to update
+     * @param stringPatch   The merge patch, a JSON object in string format
+     * @param baseNamespace base namespace for the generated SpecificRecord classes
+     * @param <T>           The type of the Avro object
+     * @return The updated SpecificRecordBase object
+     */
+    public static <T extends SpecificRecordBase> T applyJsonMergePatch(T record, String stringPatch, String baseNamespace) {
+        return JsonPatchUtils.applyMergePatch(record, stringToJsonNode(stringPatch), baseNamespace, JSONPATH_DEFAULT);
+    }
+
+    /**
+     * Applies a JSON Merge Patch (RFC 7396), expressed on the JSON side of the mapping, to an existing SpecificRecordBase object. The mapping is based on the chosen jsonpathSelector property defined for each of the fields in the original avsc file. See README.md for more details.
+     *
+     * @param record           The SpecificRecordBase to update
+     * @param stringPatch      The merge patch, a JSON object in string format
+     * @param baseNamespace    base namespace for the generated SpecificRecord classes
+     * @param jsonpathSelector The jsonpathSelector property used to search for the jsonpath mapping in the Avro definition
+     * @param <T>              The type of the Avro object
+     * @return The updated SpecificRecordBase object
+     */
+    public static <T extends SpecificRecordBase> T applyJsonMergePatch(T record, String stringPatch, String baseNamespace, String jsonpathSelector) {
+        return JsonPatchUtils.applyMergePatch(record, stringToJsonNode(stringPatch), baseNamespace, jsonpathSelector);
+    }
+
+    /**
+     * <p>Applies a JSON Patch (RFC 6902), expressed on the JSON side of the mapping, to an existing SpecificRecordBase object.
+     * Only the fields, nested records and array entries targeted by the operations are converted and updated, in place. The mapping is based on the "jsonpath" property defined for each of the fields in the original avsc file.</p>
+     * <p>The patch is atomic: if any operation is invalid or fails, the record is left unchanged.</p>
+     * <p>See README.md for more details.</p>
+     *
+     * @param record        The SpecificRecordBase to update
+     * @param stringPatch   The patch, a JSON array of operations in string format
+     * @param baseNamespace base namespace for the generated SpecificRecord classes
+     * @param <T>           The type of the Avro object
+     * @return The updated SpecificRecordBase object
+     */
+    public static <T extends SpecificRecordBase> T applyJsonPatch(T record, String stringPatch, String baseNamespace) {
+        return JsonPatchUtils.applyJsonPatch(record, stringToJsonNode(stringPatch), baseNamespace, JSONPATH_DEFAULT);
+    }
+
+    /**
+     * Applies a JSON Patch (RFC 6902), expressed on the JSON side of the mapping, to an existing SpecificRecordBase object. The mapping is based on the chosen jsonpathSelector property defined for each of the fields in the original avsc file. See README.md for more details.
+     *
+     * @param record           The SpecificRecordBase to update
+     * @param stringPatch      The patch, a JSON array of operations in string format
+     * @param baseNamespace    base namespace for the generated SpecificRecord classes
+     * @param jsonpathSelector The jsonpathSelector property used to search for the jsonpath mapping in the Avro definition
+     * @param <T>              The type of the Avro object
+     * @return The updated SpecificRecordBase object
+     */
+    public static <T extends SpecificRecordBase> T applyJsonPatch(T record, String stringPatch, String baseNamespace, String jsonpathSelector) {
+        return JsonPatchUtils.applyJsonPatch(record, stringToJsonNode(stringPatch), baseNamespace, jsonpathSelector);
+    }
+
+    /* ******************************************* */
+    /* Warm-up of the classes used by the mappings */
+    /* ******************************************* */
+
+    /**
+     * Eagerly resolve and cache every SpecificRecord class (and its constructor) and enum symbol table reachable from the given root records, and compile their default "jsonpath" mappings, so the first conversions do not pay for it.
+     * Meant to be called once at startup, typically by short-lived applications sensitive to cold-start latency.
+     *
+     * @param baseNamespace base namespace for the generated SpecificRecord classes
+     * @param rootClasses   the root SpecificRecord classes that will be converted
+     * @return the reachable record and enum classes, roots included
+     */
+    @SafeVarargs
+    public static Set<Class<?>> warmUp(String baseNamespace, Class<? extends SpecificRecordBase>... rootClasses) {
+        // copied element by element: handing the varargs array itself over to another method is what -Xlint:varargs reports
+        var roots = new ArrayList<Class<? extends SpecificRecordBase>>(rootClasses.length);
+        for (var rootClass : rootClasses) {
+            roots.add(rootClass);
+        }
+        var recordClasses = SchemaClassRegistry.warmUp(baseNamespace, roots);
+        JsonToAvroUtils.precompile(recordClasses, baseNamespace, JSONPATH_DEFAULT);
+        return recordClasses;
+    }
+
 }
@@ -4,15 +4,13 @@ import com.fasterxml.jackson.databind.JsonNode;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import com.fasterxml.jackson.databind.node.ArrayNode;
 import com.fasterxml.jackson.databind.node.ObjectNode;
-import org.apache.avro.JsonProperties;
 import org.apache.avro.Schema;
 import org.apache.avro.specific.SpecificRecordBase;
 import org.apache.commons.lang3.NotImplementedException;
 
+import java.time.Instant;
 import java.util.*;
 
-import static com.michelin.avroxmlmapper.utility.GenericUtils.extractRealType;
-
 /**
  * Utility class for Avro to JSON conversion
  */
@@ -44,6 +42,11 @@ public final class AvroToJsonUtils {
 
     public static ObjectNode findOrCreateObject(String jsonPath, ObjectNode currentNode) {
 
+        // an empty jsonpath designates the current node itself
+        if (jsonPath == null || jsonPath.isEmpty()) {
+            return currentNode;
+        }
+
         String[] jsonLevels = jsonPath.split("\\.");
 
         ObjectNode newEffectiveNode = currentNode;
@@ -92,46 +95,46 @@ public final class AvroToJsonUtils {
      * @param jsonpathSelector Name of the variable defining the jsonpath of the avsc file that needs to be used
      */
     private static void buildChildNodes(SpecificRecordBase record, ObjectNode currentNode, String jsonpathSelector) {
-        Map<String, JsonNode> childNodes = new HashMap<>();
-        for (Schema.Field field : record.getSchema().getFields()) {
-            Schema fieldType = extractRealType(field.schema());
-            String jsonPath;
+        for (OutputPlan.FieldPlan fieldPlan : OutputPlan.of(record.getSchema(), jsonpathSelector).fields()) {
+            Schema.Field field = fieldPlan.field();
+            var value = record.get(field.pos());
+            Schema fieldType = fieldPlan.type();
+            var multiBranch = false;
+            if (fieldPlan.dispatch() != null) {
+                // the branch of the value is resolved through the precomputed dispatch table of the union
+                multiBranch = fieldPlan.dispatch().isMultiBranch();
+                var branch = fieldPlan.dispatch().branchOf(value);
+                if (branch != null) {
+                    fieldType = branch;
+                }
+            }
             switch (fieldType.getType()) {
                 case NULL:
                 case UNION:
-                case ENUM:
                     break;
                 case RECORD:
-                    jsonPath = field.getProp(jsonpathSelector);
-                    if (jsonPath != null) {
-                        var subRecord = (SpecificRecordBase) record.get(field.name());
-                        if (subRecord != null) {
-                            ObjectNode node = mapper.createObjectNode();
-                            currentNode.set(field.name(), node);
-                            buildChildNodes(subRecord, node, jsonpathSelector);
-                        }
+                    if (fieldPlan.jsonpath() != null && value != null) {
+                        ObjectNode node = mapper.createObjectNode();
+                        currentNode.set(field.name(), node);
+                        buildChildNodes((SpecificRecordBase) value, node, jsonpathSelector);
                     }
                     break;
                 case ARRAY:
-                    Schema elementSchema = fieldType.getElementType();
-                    jsonPath = field.getProp(jsonpathSelector);
-                    ArrayNode arrayNode = mapper.createArrayNode();
+                    Schema elementSchema = fieldPlan.elementType();
+                    var elementJsonPath = fieldPlan.elementJsonpath();
 
-                    if (jsonPath != null) {
-                        var list = (List) record.get(field.name());
+                    if (fieldPlan.jsonpath() != null) {
+                        var list = (List<?>) value;
                         if (list != null && !list.isEmpty()) {
-                            if (extractRealType(elementSchema).getType() == Schema.Type.RECORD) { // an array of records
-                                for (SpecificRecordBase item : (List<SpecificRecordBase>) list) {
-                                    ObjectNode node = mapper.createObjectNode();
-                                    arrayNode.add(node);
-                                    buildChildNodes(item, node, jsonpathSelector);
-                                }
-                            } else if (extractRealType(elementSchema).getType() == Schema.Type.STRING) { // an array of string
-                                for (String value : (List<String>) list) {
-                                    arrayNode.add(value);
+                            ArrayNode arrayNode = currentNode.putArray(fieldPlan.jsonpath());
+                            for (Object item : list) {
+                                if (elementSchema.getType() == Schema.Type.RECORD) { // an array of records
+                                    buildChildNodes((SpecificRecordBase) item, arrayNode.addObject(), jsonpathSelector);
+                                } else if (elementJsonPath != null) { // primitive values located by the jsonpath of the items
+                                    putTypedValue(arrayNode.addObject(), elementJsonPath, elementSchema, item);
+                                } else {
+                                    addTypedValue(arrayNode, elementSchema, item);
                                 }
-                            } else {
-                                throw new NotImplementedException("Array implementation with value types other than records or String are not yet supported");
                             }
                         }
                     }
@@ -140,34 +143,69 @@ public final class AvroToJsonUtils {
                     throw new NotImplementedException("Map Are not yet supported");
                 default:
                     // all other = primitive types
-                    var xpathList = getJsonpathList(field, jsonpathSelector);
+                    if (multiBranch && value != null) {
+                        // the JSON token type carries the union branch, so that it can be decoded back
+                        for (String x : fieldPlan.jsonpathList()) {
+                            putTypedValue(currentNode, x, fieldType, value);
+                        }
+                        break;
+                    }
 
-                    String fieldValue = record.get(field.name()) != null ? record.get(field.name()).toString() : "";
+                    String fieldValue = value != null ? value.toString() : "";
                     if (!fieldValue.isEmpty()) {
-                        xpathList.forEach(x -> {
+                        for (String x : fieldPlan.jsonpathList()) {
                             currentNode.put(x, fieldValue);
-                        });
+                        }
                     }
             }
         }
     }
 
 
-    private static List<String> getJsonpathList(Schema.Field field, String xpathSelector) {
-        Object jsonpath1 = field.getObjectProp(xpathSelector);
-        var xpathList = new ArrayList<String>();
-
-        if (jsonpath1 == null || JsonProperties.NULL_VALUE.equals(jsonpath1)) {
-            return xpathList;
+    private static void addTypedValue(ArrayNode node, Schema type, Object value) {
+        if (value == null) {
+            node.addNull();
+            return;
         }
-
-        //test if xpath is an array
-        if (jsonpath1.getClass().getSimpleName().equals("ArrayList")) {
-            xpathList.addAll((Collection<? extends String>) jsonpath1);
-        } else {
-            xpathList.add((String) jsonpath1);
+        switch (type.getType()) {
+            case INT -> node.add((Integer) value);
+            case LONG -> {
+                if (value instanceof Long longValue) {
+                    node.add(longValue);
+                } else if (value instanceof Instant instant) {
+                    node.add(instant.toEpochMilli());
+                } else {
+                    node.add(value.toString());
+                }
+            }
+            case FLOAT -> node.add((Float) value);
+            case DOUBLE -> node.add((Double) value);
+            case BOOLEAN -> node.add((Boolean) value);
+            default -> node.add(value.toString()); // strings and enum symbols
         }
+    }
 
-        return xpathList;
+    private static void putTypedValue(ObjectNode node, String key, Schema branch, Object value) {
+        if (value == null) {
+            node.putNull(key);
+            return;
+        }
+        switch (branch.getType()) {
+            case INT -> node.put(key, (Integer) value);
+            case LONG -> {
+                if (value instanceof Long longValue) {
+                    node.put(key, longValue);
+                } else if (value instanceof Instant instant) {
+                    // a timestamp written as text would be decoded back into a string branch
+                    node.put(key, instant.toEpochMilli());
+                } else {
+                    node.put(key, value.toString());
+                }
+            }
+            case FLOAT -> node.put(key, (Float) value);
+            case DOUBLE -> node.put(key, (Double) value);
+            case BOOLEAN -> node.put(key, (Boolean) value);
+            default -> node.put(key, value.toString());
+        }
     }
 }
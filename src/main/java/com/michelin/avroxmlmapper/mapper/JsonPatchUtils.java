@@ -0,0 +1,333 @@
+package com.michelin.avroxmlmapper.mapper;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.node.NullNode;
+import com.michelin.avroxmlmapper.exception.AvroJsonMapperException;
+import org.apache.avro.Schema;
+import org.apache.avro.generic.GenericData;
+import org.apache.avro.specific.SpecificData;
+import org.apache.avro.specific.SpecificRecordBase;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.List;
+
+/**
+ * Utility class for applying JSON Merge Patch (RFC 7396) and JSON Patch (RFC 6902) documents to an existing Avro record.
+ * <p>The patches are expressed on the JSON side of the mapping: their paths are matched against the jsonpath of the fields,
+ * so only the fields, nested records and array entries touched by the patch are converted and updated, in place.
+ * Fields whose jsonpath is not definite (wildcards, recursive descents, filters) cannot be reversed and are left untouched.</p>
+ */
+public final class JsonPatchUtils {
+
+    /**
+     * Apply a JSON Merge Patch (RFC 7396) to a record, in place.
+     *
+     * @param record           the record to update
+     * @param patch            the merge patch, a JSON object
+     * @param baseNamespace    base namespace for the generated SpecificRecord classes
+     * @param jsonpathSelector the jsonpathSelector property used to search for the jsonpath mapping in the Avro definition
+     * @param <T>              The type of the Avro object
+     * @return the updated record
+     */
+    static <T extends SpecificRecordBase> T applyMergePatch(T record, JsonNode patch, String baseNamespace, String jsonpathSelector) {
+        if (!patch.isObject()) {
+            throw new AvroJsonMapperException("A JSON Merge Patch applied to a record must be a JSON object");
+        }
+        try {
+            mergePatch(record, patch, baseNamespace, jsonpathSelector);
+            return record;
+        } catch (AvroJsonMapperException e) {
+            throw e;
+        } catch (Exception e) {
+            throw new AvroJsonMapperException("Failed to apply JSON Merge Patch", e);
+        }
+    }
+
+    /**
+     * Apply a JSON Patch (RFC 6902) to a record. The "add", "remove" and "replace" operations are supported,
+     * "move", "copy" and "test" need the original JSON document and are rejected.
+     * <p>The patch is atomic: every operation is validated before anything is applied, then the operations update the record in place
+     * while recording the previous value of everything they change. When one fails, those changes are undone in reverse order,
+     * so the record is left unchanged, and the cost stays proportional to the size of the patch.</p>
+     *
+     * @param record           the record to update
+     * @param patch            the patch, a JSON array of operations
+     * @param baseNamespace    base namespace for the generated SpecificRecord classes
+     * @param jsonpathSelector the jsonpathSelector property used to search for the jsonpath mapping in the Avro definition
+     * @param <T>              The type of the Avro object
+     * @return the updated record
+     */
+    static <T extends SpecificRecordBase> T applyJsonPatch(T record, JsonNode patch, String baseNamespace, String jsonpathSelector) {
+        if (!patch.isArray()) {
+            throw new AvroJsonMapperException("A JSON Patch must be a JSON array of operations");
+        }
+
+        var pointers = new ArrayList<List<String>>(patch.size());
+        for (JsonNode operation : patch) {
+            var path = operation.path("path").asText(null);
+            if (path == null) {
+                throw new AvroJsonMapperException("Missing path in JSON Patch operation " + operation);
+            }
+            switch (operation.path("op").asText()) {
+                case "add", "replace" -> {
+                    if (!operation.has("value")) {
+                        throw new AvroJsonMapperException("Missing value in JSON Patch operation " + operation);
+                    }
+                }
+                case "remove" -> {
+                    // no value
+                }
+                default -> throw new AvroJsonMapperException("Unsupported JSON Patch operation (only add, remove and replace are supported) " + operation);
+            }
+            pointers.add(parsePointer(path));
+        }
+
+        var undoLog = new UndoLog();
+        for (int i = 0; i < patch.size(); i++) {
+            var operation = patch.get(i);
+            try {
+                patch(record, pointers.get(i), operation.get("op").asText(), operation.get("value"), baseNamespace, jsonpathSelector, undoLog);
+            } catch (Exception e) {
+                undoLog.rollback();
+                throw e instanceof AvroJsonMapperException mapperException
+                        ? mapperException
+                        : new AvroJsonMapperException("Failed to apply JSON Patch operation " + operation, e);
+            }
+        }
+        return record;
+    }
+
+    /* **************** */
+    /* JSON Merge Patch */
+    /* **************** */
+
+    private static void mergePatch(SpecificRecordBase record, JsonNode patch, String baseNamespace, String jsonpathSelector) {
+        for (var fieldPlan : RecordPlan.of(record.getSchema(), baseNamespace, jsonpathSelector).fields()) {
+            var pointer = fieldPlan.path().getPointer();
+            if (pointer == null) {
+                continue;
+            }
+
+            // Patch objects are merged into the target, everything else (including arrays) replaces it
+            JsonNode node = patch;
+            var merge = true;
+            for (String token : pointer) {
+                if (merge && node.isObject()) {
+                    node = node.get(token);
+                    if (node == null) {
+                        break;
+                    }
+                } else {
+                    // inside a replacing value, a missing location means the field is removed
+                    merge = false;
+                    node = child(node, token);
+                    if (node == null) {
+                        node = NullNode.getInstance();
+                        break;
+                    }
+                }
+            }
+
+            if (node == null) {
+                continue; // field untouched by the patch
+            }
+
+            var current = record.get(fieldPlan.field().name());
+            if (node.isNull()) {
+                removeField(record, fieldPlan.field());
+            } else if (merge && node.isObject() && current instanceof SpecificRecordBase subRecord) {
+                mergePatch(subRecord, node, baseNamespace, jsonpathSelector);
+            } else {
+                JsonToAvroUtils.convertField(record, fieldPlan, List.of(node), baseNamespace, jsonpathSelector);
+            }
+        }
+    }
+
+    /* ********** */
+    /* JSON Patch */
+    /* ********** */
+
+    private static void patch(SpecificRecordBase record, List<String> tokens, String op, JsonNode value, String baseNamespace, String jsonpathSelector, UndoLog undoLog) {
+        for (var fieldPlan : RecordPlan.of(record.getSchema(), baseNamespace, jsonpathSelector).fields()) {
+            var pointer = fieldPlan.path().getPointer();
+            if (pointer == null) {
+                continue;
+            }
+
+            if (tokens.size() <= pointer.size() && pointer.subList(0, tokens.size()).equals(tokens)) {
+                // the operation targets the field or one of its parents: the field takes its value from the new parent, if any
+                JsonNode node = op.equals("remove") ? NullNode.getInstance() : value;
+                for (String token : pointer.subList(tokens.size(), pointer.size())) {
+                    node = child(node, token);
+                }
+                undoLog.field(record, fieldPlan.field());
+                if (node == null || node.isNull()) {
+                    removeField(record, fieldPlan.field());
+                } else {
+                    JsonToAvroUtils.convertField(record, fieldPlan, List.of(node), baseNamespace, jsonpathSelector);
+                }
+            } else if (tokens.size() > pointer.size() && tokens.subList(0, pointer.size()).equals(pointer)) {
+                // the operation targets something inside the field
+                patchInside(record, fieldPlan, tokens.subList(pointer.size(), tokens.size()), op, value, baseNamespace, jsonpathSelector, undoLog);
+            }
+        }
+    }
+
+    private static void patchInside(SpecificRecordBase record, RecordPlan.FieldPlan fieldPlan, List<String> tokens, String op, JsonNode value, String baseNamespace, String jsonpathSelector, UndoLog undoLog) {
+        var fieldName = fieldPlan.field().name();
+        var current = record.get(fieldName);
+
+        if (current == null) {
+            throw new AvroJsonMapperException("Target location of JSON Patch operation does not exist: " + fieldName + " is null");
+        }
+
+        if (current instanceof SpecificRecordBase subRecord) {
+            patch(subRecord, tokens, op, value, baseNamespace, jsonpathSelector, undoLog);
+        } else if (current instanceof List<?> currentList && fieldPlan.arrayType() != null) {
+            var index = arrayIndex(tokens.get(0), currentList.size(), tokens.size() == 1 && op.equals("add"));
+            var elementTokens = tokens.subList(1, tokens.size());
+            var elementPointer = fieldPlan.elementPath() != null ? fieldPlan.elementPath().getPointer() : List.<String>of();
+
+            if (elementTokens.isEmpty()) {
+                var list = mutableList(record, fieldPlan.field(), currentList, undoLog);
+                switch (op) {
+                    case "add" -> undoLog.add(list, index, JsonToAvroUtils.convertArrayElement(fieldPlan, value, baseNamespace, jsonpathSelector));
+                    case "remove" -> undoLog.remove(list, index);
+                    default -> undoLog.set(list, index, JsonToAvroUtils.convertArrayElement(fieldPlan, value, baseNamespace, jsonpathSelector));
+                }
+            } else if (currentList.get(index) instanceof SpecificRecordBase element) {
+                patch(element, elementTokens, op, value, baseNamespace, jsonpathSelector, undoLog);
+            } else if (elementTokens.equals(elementPointer)) {
+                // the value of a primitive entry, located by the jsonpath of the array items
+                if (!op.equals("remove")) {
+                    var entry = JsonToAvroUtils.convertArrayValue(fieldPlan.elementType(), value, baseNamespace);
+                    undoLog.set(mutableList(record, fieldPlan.field(), currentList, undoLog), index, entry);
+                } else if (isNullable(fieldPlan.arrayType().getElementType())) {
+                    undoLog.set(mutableList(record, fieldPlan.field(), currentList, undoLog), index, null);
+                } else {
+                    throw new AvroJsonMapperException("Items of " + fieldName + " are not nullable, the value of an entry cannot be removed");
+                }
+            }
+            // other locations inside the entries are not mapped
+        }
+        // primitive types have no content to patch
+    }
+
+    // The list of an array field, updated in place when it is mutable, otherwise replaced once by a mutable copy
+    @SuppressWarnings("unchecked")
+    private static List<Object> mutableList(SpecificRecordBase record, Schema.Field field, List<?> list, UndoLog undoLog) {
+        if (list instanceof ArrayList<?> || list instanceof GenericData.Array<?>) {
+            return (List<Object>) list;
+        }
+        var copy = new ArrayList<Object>(list);
+        undoLog.field(record, field);
+        record.put(field.pos(), copy);
+        return copy;
+    }
+
+    private static int arrayIndex(String token, int size, boolean insertion) {
+        if (insertion && token.equals("-")) {
+            return size;
+        }
+        int index;
+        try {
+            index = Integer.parseInt(token);
+        } catch (NumberFormatException e) {
+            throw new AvroJsonMapperException("Invalid array index in JSON Patch: " + token, e);
+        }
+        if (index < 0 || index > size || (!insertion && index == size)) {
+            throw new AvroJsonMapperException("Array index out of bounds in JSON Patch: " + token);
+        }
+        return index;
+    }
+
+    /* ********* */
+    /* Utilities */
+    /* ********* */
+
+    /**
+     * Parse a JSON Pointer (RFC 6901) into its unescaped reference tokens.
+     *
+     * @param pointer the JSON Pointer
+     * @return the reference tokens
+     */
+    static List<String> parsePointer(String pointer) {
+        if (pointer.isEmpty()) {
+            return List.of();
+        }
+        if (!pointer.startsWith("/")) {
+            throw new AvroJsonMapperException("Invalid JSON Pointer: " + pointer);
+        }
+        var tokens = new ArrayList<String>();
+        for (String token : pointer.substring(1).split("/", -1)) {
+            tokens.add(token.replace("~1", "/").replace("~0", "~"));
+        }
+        return tokens;
+    }
+
+    private static JsonNode child(JsonNode node, String token) {
+        if (node == null) {
+            return null;
+        }
+        if (node.isArray()) {
+            try {
+                return node.get(Integer.parseInt(token));
+            } catch (NumberFormatException e) {
+                return null;
+            }
+        }
+        return node.get(token);
+    }
+
+    private static void removeField(SpecificRecordBase record, Schema.Field field) {
+        if (isNullable(field.schema())) {
+            record.put(field.name(), null);
+        } else if (field.hasDefaultValue()) {
+            record.put(field.name(), SpecificData.get().getDefaultValue(field));
+        } else {
+            throw new AvroJsonMapperException("Field " + field.name() + " is neither nullable nor has a default value, it cannot be removed");
+        }
+    }
+
+    /**
+     * Previous state of everything changed by a JSON Patch, restored in reverse order when an operation fails.
+     */
+    private static final class UndoLog {
+
+        private final Deque<Runnable> undos = new ArrayDeque<>();
+
+        // to be called before the field is changed
+        void field(SpecificRecordBase record, Schema.Field field) {
+            var previous = record.get(field.pos());
+            undos.push(() -> record.put(field.pos(), previous));
+        }
+
+        void add(List<Object> list, int index, Object value) {
+            list.add(index, value);
+            undos.push(() -> list.remove(index));
+        }
+
+        void remove(List<Object> list, int index) {
+            var previous = list.remove(index);
+            undos.push(() -> list.add(index, previous));
+        }
+
+        void set(List<Object> list, int index, Object value) {
+            var previous = list.set(index, value);
+            undos.push(() -> list.set(index, previous));
+        }
+
+        void rollback() {
+            while (!undos.isEmpty()) {
+                undos.pop().run();
+            }
+        }
+    }
+
+    private static boolean isNullable(Schema schema) {
+        return schema.getType() == Schema.Type.NULL
+                || (schema.getType() == Schema.Type.UNION && schema.getTypes().stream().anyMatch(s -> s.getType() == Schema.Type.NULL));
+    }
+}
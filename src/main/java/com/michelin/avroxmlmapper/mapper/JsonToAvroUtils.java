@@ -16,9 +16,11 @@ import java.time.format.DateTimeFormatter;
 import java.time.format.DateTimeParseException;
 import java.time.temporal.TemporalAccessor;
 import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
 
-import static com.michelin.avroxmlmapper.utility.GenericUtils.extractRealType;
 import static com.michelin.avroxmlmapper.utility.GenericUtils.parseValue;
+import static com.michelin.avroxmlmapper.utility.GenericUtils.textValueOf;
 
 /**
  * Utility class for converting Json to Avro.
@@ -37,64 +39,14 @@ public final class JsonToAvroUtils {
      */
     static <T extends SpecificRecordBase> T convert(JsonNode currentNode, String baseNamespace, Class<T> clazz, String jsonpathSelector) {
         try {
-            T record = clazz.getDeclaredConstructor().newInstance();
-            for (Schema.Field field : record.getSchema().getFields()) {
-                Schema fieldType = extractRealType(field.schema());
-                var fieldNode = resolveNode(currentNode, field.getProp(jsonpathSelector));
-
-                if(fieldNode == null) {
-                   continue;
-                }
-
-                switch (fieldType.getType()) {
-                    case NULL:
-                    case UNION:
-                    case ENUM:
-                        // nothing
-                        break;
-                    case RECORD:
-                        record.put(field.name(), convert(fieldNode, baseNamespace, baseClass(baseNamespace, fieldType.getName()), jsonpathSelector));
-                        break;
-                    case ARRAY:
-                        var jsonEntries = fieldNode.elements();
-                        var avroArray = new ArrayList<>();
-                        record.put(field.name(), avroArray);
-
-                        var elementSchema = fieldType.getElementType();
-                        if (extractRealType(elementSchema).getType() == Schema.Type.RECORD) { // an array of records
-                            jsonEntries.forEachRemaining(childJsonNode -> {
-                                try {
-                                    avroArray.add(convert(childJsonNode, baseNamespace, baseClass(baseNamespace, fieldType.getElementType().getName()), jsonpathSelector));
-                                } catch (ClassNotFoundException e) {
-                                    throw new RuntimeException(e);
-                                }
-                            });
-                        } else {
-                            // Primitive types
-                            jsonEntries.forEachRemaining(childJsonNode -> {
-                                // for arrays, we use the path selector on the child type to match the array value
-                                var stringValue = resolveNode(childJsonNode, fieldType.getProp(jsonpathSelector)).textValue();
-                                    avroArray.add(parseValue(extractRealType(elementSchema).getType(), stringValue));
-                            });
-                        }
-                        break;
-                    case MAP:
-                        break;
-                    case LONG:
-                        var longFieldValue = fieldNode.textValue();
-
-                        //Handle dates to a TimezonedTimestamp format
-                        if (fieldType.getLogicalType() != null && fieldType.getLogicalType().getName().equals("timestamp-millis")) {
-                            record.put(field.name(), convertJsonDateToAvro(longFieldValue, field, fieldType));
-                        } else {
-                            record.put(field.name(), Long.parseLong(longFieldValue));
-                        }
-                        break;
-                    case BYTES:
-                        break;
-                    default:
-                        var stringFieldValue = fieldNode.textValue();
-                        record.put(field.name(), parseValue(fieldType.getType(), stringFieldValue));
+            T record = SchemaClassRegistry.newInstance(clazz);
+            var plan = RecordPlan.of(record.getSchema(), baseNamespace, jsonpathSelector);
+            var fieldMatches = plan.matcher().evaluate(currentNode);
+
+            for (int i = 0; i < plan.fields().size(); i++) {
+                var matches = fieldMatches.get(i);
+                if (!matches.isEmpty()) {
+                    convertField(record, plan.fields().get(i), matches, baseNamespace, jsonpathSelector);
                 }
             }
             return record;
@@ -103,28 +55,145 @@ public final class JsonToAvroUtils {
         }
     }
 
-    // If the path parameter contains dot or array notation, we need to resolve it
-    // Returns the resolved node
-    private static JsonNode resolveNode(JsonNode node, String path) {
+    /**
+     * Converts the JSON-nodes matched by the jsonpath of a field and sets the result in the record.
+     *
+     * @param record           the record to update
+     * @param fieldPlan        the mapped field
+     * @param matches          the JSON-nodes matched by the jsonpath of the field, not empty
+     * @param baseNamespace    base namespace for the generated SpecificRecord classes
+     * @param jsonpathSelector the jsonpathSelector property used to search for the jsonpath mapping in the Avro definition
+     */
+    static void convertField(SpecificRecordBase record, RecordPlan.FieldPlan fieldPlan, List<JsonNode> matches, String baseNamespace, String jsonpathSelector) {
+        Schema.Field field = fieldPlan.field();
+        var fieldNode = matches.get(0);
+
+        Schema fieldType;
+        if (!fieldPlan.path().isDefinite() && fieldPlan.arrayType() != null) {
+            fieldType = fieldPlan.arrayType(); // every match is an entry of the array
+        } else if (fieldPlan.dispatch() != null) {
+            fieldType = fieldPlan.dispatch().branchFor(fieldNode); // the JSON token type selects the union branch
+            if (fieldType == null) {
+                return;
+            }
+        } else {
+            fieldType = fieldPlan.type();
+        }
 
-        if (path == null) {
-            return null;
+        switch (fieldType.getType()) {
+            case NULL:
+            case UNION:
+                // nothing
+                break;
+            case ENUM:
+                record.put(field.name(), convertEnum(fieldType, fieldNode, baseNamespace));
+                break;
+            case RECORD:
+                record.put(field.name(), convert(fieldNode, baseNamespace, fieldPlan.recordClass(), jsonpathSelector));
+                break;
+            case ARRAY:
+                // a definite jsonpath points to the json array, otherwise every match is an entry of the array,
+                // or several entries when the match is itself a json array (..tags matching several tags arrays, for instance)
+                var avroArray = new ArrayList<>();
+                record.put(field.name(), avroArray);
+                if (fieldPlan.path().isDefinite()) {
+                    fieldNode.elements().forEachRemaining(childJsonNode -> avroArray.add(convertArrayElement(fieldPlan, childJsonNode, baseNamespace, jsonpathSelector)));
+                } else {
+                    for (JsonNode match : matches) {
+                        if (match.isArray()) {
+                            match.elements().forEachRemaining(childJsonNode -> avroArray.add(convertArrayElement(fieldPlan, childJsonNode, baseNamespace, jsonpathSelector)));
+                        } else {
+                            avroArray.add(convertArrayElement(fieldPlan, match, baseNamespace, jsonpathSelector));
+                        }
+                    }
+                }
+                break;
+            case MAP:
+                break;
+            case LONG:
+                var longFieldValue = textValueOf(fieldNode);
+
+                //Handle dates to a TimezonedTimestamp format
+                if (fieldType.getLogicalType() != null && fieldType.getLogicalType().getName().equals("timestamp-millis")) {
+                    // a JSON number is an epoch timestamp, as written for unions holding both a string and a timestamp
+                    record.put(field.name(), fieldNode.isIntegralNumber() ? Instant.ofEpochMilli(fieldNode.longValue()) : convertJsonDateToAvro(longFieldValue, field, fieldType));
+                } else {
+                    record.put(field.name(), Long.parseLong(longFieldValue));
+                }
+                break;
+            case BYTES:
+                break;
+            default:
+                var stringFieldValue = textValueOf(fieldNode);
+                record.put(field.name(), parseValue(fieldType.getType(), stringFieldValue));
         }
-        var subPaths = path.split("\\.");
+    }
 
-        var effectiveNode = node;
+    /**
+     * Converts a JSON-node entry of an array field.
+     *
+     * @param fieldPlan        the mapped array field
+     * @param childJsonNode    the JSON-node of the entry
+     * @param baseNamespace    base namespace for the generated SpecificRecord classes
+     * @param jsonpathSelector the jsonpathSelector property used to search for the jsonpath mapping in the Avro definition
+     * @return the Avro value of the entry
+     */
+    static Object convertArrayElement(RecordPlan.FieldPlan fieldPlan, JsonNode childJsonNode, String baseNamespace, String jsonpathSelector) {
+        var elementSchema = fieldPlan.elementType();
+        if (elementSchema.getType() == Schema.Type.RECORD) { // an array of records
+            return convert(childJsonNode, baseNamespace, fieldPlan.elementClass(), jsonpathSelector);
+        }
+        // Primitive types: for arrays, we use the path selector on the child type to match the array value
+        var valueNode = fieldPlan.elementPath() != null ? fieldPlan.elementPath().evaluateFirst(childJsonNode) : childJsonNode;
+        return valueNode != null ? convertArrayValue(elementSchema, valueNode, baseNamespace) : null;
+    }
 
-        for(var subPath : subPaths) {
-            if(subPath.contains("[")) {
-                var arrayPath = subPath.split("\\[");
-                var arrayIndex = Integer.parseInt(arrayPath[1].replace("]", ""));
-                effectiveNode = effectiveNode.get(arrayPath[0]).get(arrayIndex);
-            } else {
-                effectiveNode = effectiveNode.get(subPath);
-            }
+    /**
+     * Converts the JSON-node holding the value of a primitive (or enum) array entry.
+     *
+     * @param elementSchema the non-null type of the array items
+     * @param valueNode     the JSON-node holding the value
+     * @param baseNamespace base namespace for the generated SpecificRecord classes
+     * @return the Avro value of the entry
+     */
+    static Object convertArrayValue(Schema elementSchema, JsonNode valueNode, String baseNamespace) {
+        if (elementSchema.getType() == Schema.Type.ENUM) {
+            return convertEnum(elementSchema, valueNode, baseNamespace);
         }
+        return parseValue(elementSchema.getType(), textValueOf(valueNode));
+    }
 
-        return effectiveNode;
+    /**
+     * Converts a JSON-node holding an enum symbol, using the precomputed symbol table of the enum.
+     * Unknown symbols are converted to the default symbol of the enum, if any.
+     *
+     * @param enumSchema    the enum schema
+     * @param node          the JSON-node holding the symbol
+     * @param baseNamespace base namespace for the generated SpecificRecord classes
+     * @return the enum constant, or null
+     */
+    private static Object convertEnum(Schema enumSchema, JsonNode node, String baseNamespace) {
+        var symbols = SchemaClassRegistry.enumSymbols(baseNamespace, enumSchema);
+        var symbol = textValueOf(node);
+        var value = symbol != null ? symbols.get(symbol) : null;
+        if (value == null && enumSchema.getEnumDefault() != null) {
+            value = symbols.get(enumSchema.getEnumDefault());
+        }
+        return value;
+    }
+
+    /**
+     * Compile, and cache, the jsonpath mappings of every record class given, so the first conversions do not pay for it.
+     *
+     * @param recordClasses    the classes to compile, classes other than SpecificRecord are ignored
+     * @param baseNamespace    base namespace for the generated SpecificRecord classes
+     * @param jsonpathSelector the jsonpathSelector property used to search for the jsonpath mapping in the Avro definition
+     */
+    @SuppressWarnings("unchecked")
+    static void precompile(Collection<Class<?>> recordClasses, String baseNamespace, String jsonpathSelector) {
+        recordClasses.stream()
+                .filter(SpecificRecordBase.class::isAssignableFrom)
+                .forEach(clazz -> RecordPlan.of(SchemaClassRegistry.newInstance((Class<SpecificRecordBase>) clazz).getSchema(), baseNamespace, jsonpathSelector));
     }
 
 
@@ -253,9 +322,4 @@ public final class JsonToAvroUtils {
         return result.toInstant();
     }
 
-
-    @SuppressWarnings("unchecked")
-    private static Class<SpecificRecordBase> baseClass(String baseNamespace, String typeName) throws ClassNotFoundException {
-        return (Class<SpecificRecordBase>) Class.forName(baseNamespace + "." + typeName);
-    }
 }
@@ -0,0 +1,93 @@
+package com.michelin.avroxmlmapper.mapper;
+
+import org.apache.avro.JsonProperties;
+import org.apache.avro.Schema;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+import static com.michelin.avroxmlmapper.utility.GenericUtils.extractRealType;
+
+/**
+ * Precompiled Avro to JSON mapping of a record schema for a given jsonpath selector: for each field, its union dispatch,
+ * its types and its jsonpath, so writing a record does not resolve the schema again. Built once per schema and selector, then cached.
+ * The counterpart of {@link RecordPlan} for the other direction.
+ */
+final class OutputPlan {
+
+    private static final Map<String, Map<Schema, OutputPlan>> PLANS = new ConcurrentHashMap<>();
+
+    private final List<FieldPlan> fields;
+
+    private OutputPlan(Schema schema, String jsonpathSelector) {
+        var fieldPlans = new ArrayList<FieldPlan>();
+        for (Schema.Field field : schema.getFields()) {
+            Schema fieldSchema = field.schema();
+            var type = extractRealType(fieldSchema);
+            var dispatch = fieldSchema.getType() == Schema.Type.UNION ? UnionDispatch.of(fieldSchema) : null;
+            var arrayType = fieldSchema.getType() == Schema.Type.UNION
+                    ? fieldSchema.getTypes().stream().filter(s -> s.getType() == Schema.Type.ARRAY).findFirst().orElse(null)
+                    : (fieldSchema.getType() == Schema.Type.ARRAY ? fieldSchema : null);
+            fieldPlans.add(new FieldPlan(field, type, dispatch, field.getProp(jsonpathSelector), jsonpathList(field, jsonpathSelector),
+                    arrayType != null ? extractRealType(arrayType.getElementType()) : null,
+                    arrayType != null ? arrayType.getProp(jsonpathSelector) : null));
+        }
+        this.fields = List.copyOf(fieldPlans);
+    }
+
+    @SuppressWarnings("unchecked")
+    private static List<String> jsonpathList(Schema.Field field, String xpathSelector) {
+        Object jsonpath1 = field.getObjectProp(xpathSelector);
+        var xpathList = new ArrayList<String>();
+
+        if (jsonpath1 == null || JsonProperties.NULL_VALUE.equals(jsonpath1)) {
+            return xpathList;
+        }
+
+        //test if xpath is an array
+        if (jsonpath1 instanceof Collection<?>) {
+            xpathList.addAll((Collection<? extends String>) jsonpath1);
+        } else {
+            xpathList.add((String) jsonpath1);
+        }
+
+        return List.copyOf(xpathList);
+    }
+
+    /**
+     * Get the (cached) plan of a record schema.
+     *
+     * @param schema           the record schema
+     * @param jsonpathSelector the jsonpathSelector property used to search for the jsonpath mapping in the Avro definition
+     * @return the plan
+     */
+    static OutputPlan of(Schema schema, String jsonpathSelector) {
+        return PLANS.computeIfAbsent(jsonpathSelector, s -> new ConcurrentHashMap<>())
+                .computeIfAbsent(schema, s -> new OutputPlan(s, jsonpathSelector));
+    }
+
+    /**
+     * @return every field of the record, in schema order
+     */
+    List<FieldPlan> fields() {
+        return fields;
+    }
+
+    /**
+     * A field to write.
+     *
+     * @param field           the Avro field
+     * @param type            the first non-null type of the field, used when the branch of a value cannot be resolved
+     * @param dispatch        for unions, the branch dispatch tables, null otherwise
+     * @param jsonpath        the jsonpath of the field, if any
+     * @param jsonpathList    the jsonpath(s) the value of a primitive field is written to
+     * @param elementType     for arrays, the non-null type of the items
+     * @param elementJsonpath for arrays, the jsonpath of the value relative to each element, if any
+     */
+    record FieldPlan(Schema.Field field, Schema type, UnionDispatch dispatch, String jsonpath, List<String> jsonpathList,
+                     Schema elementType, String elementJsonpath) {
+    }
+}
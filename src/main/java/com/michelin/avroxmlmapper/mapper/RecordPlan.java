@@ -0,0 +1,113 @@
+package com.michelin.avroxmlmapper.mapper;
+
+import com.michelin.avroxmlmapper.utility.JsonPath;
+import com.michelin.avroxmlmapper.utility.JsonPathMatcher;
+import org.apache.avro.Schema;
+import org.apache.avro.specific.SpecificRecordBase;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+import static com.michelin.avroxmlmapper.utility.GenericUtils.extractRealType;
+
+/**
+ * Precompiled mapping of a record schema for a given base namespace and jsonpath selector: the mapped fields, their compiled jsonpath,
+ * their resolved record classes and the automaton matching all of them at once. Built once per schema, namespace and selector, then cached.
+ */
+final class RecordPlan {
+
+    private static final Map<String, Map<String, Map<Schema, RecordPlan>>> PLANS = new ConcurrentHashMap<>();
+
+    private final List<FieldPlan> fields;
+
+    private final JsonPathMatcher matcher;
+
+    private RecordPlan(Schema schema, String baseNamespace, String jsonpathSelector) {
+        var fieldPlans = new ArrayList<FieldPlan>();
+        for (Schema.Field field : schema.getFields()) {
+            var jsonpath = field.getProp(jsonpathSelector);
+            if (jsonpath == null) {
+                continue;
+            }
+            Schema fieldSchema = field.schema();
+            var dispatch = fieldSchema.getType() == Schema.Type.UNION && UnionDispatch.of(fieldSchema).isMultiBranch() ? UnionDispatch.of(fieldSchema) : null;
+            var arrayType = arrayType(fieldSchema);
+            var elementType = arrayType != null ? extractRealType(arrayType.getElementType()) : null;
+            var elementJsonpath = arrayType != null ? arrayType.getProp(jsonpathSelector) : null;
+            fieldPlans.add(new FieldPlan(field, extractRealType(fieldSchema), dispatch, recordClass(baseNamespace, fieldSchema), JsonPath.compile(jsonpath),
+                    arrayType, elementType, recordClass(baseNamespace, elementType),
+                    elementJsonpath == null ? null : JsonPath.compile(elementJsonpath)));
+        }
+        this.fields = List.copyOf(fieldPlans);
+        this.matcher = new JsonPathMatcher(fields.stream().map(FieldPlan::path).toList());
+    }
+
+    private static Schema arrayType(Schema schema) {
+        if (schema.getType() == Schema.Type.UNION) {
+            return schema.getTypes().stream().filter(s -> s.getType() == Schema.Type.ARRAY).findFirst().orElse(null);
+        }
+        return schema.getType() == Schema.Type.ARRAY ? schema : null;
+    }
+
+    // The class of the record type, or of the first record branch of a union, resolved once for all the conversions
+    private static Class<SpecificRecordBase> recordClass(String baseNamespace, Schema schema) {
+        if (schema == null) {
+            return null;
+        }
+        if (schema.getType() == Schema.Type.UNION) {
+            return schema.getTypes().stream()
+                    .filter(s -> s.getType() == Schema.Type.RECORD)
+                    .findFirst()
+                    .map(s -> SchemaClassRegistry.resolveClass(baseNamespace, s.getName()))
+                    .orElse(null);
+        }
+        return schema.getType() == Schema.Type.RECORD ? SchemaClassRegistry.resolveClass(baseNamespace, schema.getName()) : null;
+    }
+
+    /**
+     * Get the (cached) plan of a record schema.
+     *
+     * @param schema           the record schema
+     * @param baseNamespace    base namespace for the generated SpecificRecord classes
+     * @param jsonpathSelector the jsonpathSelector property used to search for the jsonpath mapping in the Avro definition
+     * @return the plan
+     */
+    static RecordPlan of(Schema schema, String baseNamespace, String jsonpathSelector) {
+        return PLANS.computeIfAbsent(baseNamespace, n -> new ConcurrentHashMap<>())
+                .computeIfAbsent(jsonpathSelector, s -> new ConcurrentHashMap<>())
+                .computeIfAbsent(schema, s -> new RecordPlan(s, baseNamespace, jsonpathSelector));
+    }
+
+    /**
+     * @return the fields having a jsonpath, in schema order
+     */
+    List<FieldPlan> fields() {
+        return fields;
+    }
+
+    /**
+     * @return the automaton matching the jsonpath of every field, indexed as {@link #fields()}
+     */
+    JsonPathMatcher matcher() {
+        return matcher;
+    }
+
+    /**
+     * A mapped field.
+     *
+     * @param field       the Avro field
+     * @param type        the first non-null type of the field
+     * @param dispatch    for unions with several non-null branches, the branch dispatch tables, null otherwise
+     * @param recordClass the class of the record type (or record branch) of the field, if any
+     * @param path        the compiled jsonpath of the field
+     * @param arrayType   the array type of the field, or its array branch, if any
+     * @param elementType for arrays, the non-null type of the items
+     * @param elementClass for arrays of records, the class of the items
+     * @param elementPath for arrays, the compiled jsonpath of the value relative to each element, if any
+     */
+    record FieldPlan(Schema.Field field, Schema type, UnionDispatch dispatch, Class<SpecificRecordBase> recordClass, JsonPath path,
+                     Schema arrayType, Schema elementType, Class<SpecificRecordBase> elementClass, JsonPath elementPath) {
+    }
+}
@@ -0,0 +1,178 @@
+package com.michelin.avroxmlmapper.mapper;
+
+import com.michelin.avroxmlmapper.exception.AvroJsonMapperException;
+import org.apache.avro.Schema;
+import org.apache.avro.specific.SpecificRecordBase;
+
+import java.lang.reflect.Constructor;
+import java.util.ArrayDeque;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Cache of the SpecificRecord classes (and their no-arg constructors) and of the enum symbol tables used during the conversions.
+ * <p>Nested classes are resolved lazily on first use by default. {@link #warmUp(String, List)} can be called at startup
+ * to resolve every class reachable from a list of root records up-front, so the first messages do not pay for it.</p>
+ */
+public final class SchemaClassRegistry {
+
+    private static final Map<String, Class<?>> CLASSES = new ConcurrentHashMap<>();
+
+    private static final Map<Class<?>, Constructor<?>> CONSTRUCTORS = new ConcurrentHashMap<>();
+
+    private static final Map<String, Map<Schema, Map<String, Object>>> ENUM_SYMBOLS = new ConcurrentHashMap<>();
+
+    private SchemaClassRegistry() {
+    }
+
+    /**
+     * Resolve the SpecificRecord class generated for a record type, using the base namespace of the conversion.
+     *
+     * @param baseNamespace base namespace for the generated SpecificRecord classes
+     * @param typeName      simple name of the record type
+     * @return the resolved class
+     */
+    @SuppressWarnings("unchecked")
+    public static Class<SpecificRecordBase> resolveClass(String baseNamespace, String typeName) {
+        var clazz = CLASSES.computeIfAbsent(baseNamespace + "." + typeName, SchemaClassRegistry::forName);
+        if (!SpecificRecordBase.class.isAssignableFrom(clazz)) {
+            throw new AvroJsonMapperException(clazz.getName() + " is not a record class");
+        }
+        return (Class<SpecificRecordBase>) clazz;
+    }
+
+    /**
+     * Get the symbol table of an enum type: each symbol of the schema mapped to the constant of the generated enum class.
+     * The table is built once per base namespace and enum schema, so decoding a symbol is a single lookup.
+     *
+     * @param baseNamespace base namespace for the generated SpecificRecord classes
+     * @param enumSchema    the enum schema
+     * @return the symbol table
+     */
+    public static Map<String, Object> enumSymbols(String baseNamespace, Schema enumSchema) {
+        return ENUM_SYMBOLS.computeIfAbsent(baseNamespace, n -> new ConcurrentHashMap<>()).computeIfAbsent(enumSchema, schema -> {
+            var clazz = CLASSES.computeIfAbsent(baseNamespace + "." + schema.getName(), SchemaClassRegistry::forName);
+            var constants = clazz.getEnumConstants();
+            if (constants == null) {
+                throw new AvroJsonMapperException(clazz.getName() + " is not an enum class");
+            }
+            // generated enums declare their constants in the order of the schema symbols
+            var symbols = new HashMap<String, Object>();
+            for (String symbol : schema.getEnumSymbols()) {
+                symbols.put(symbol, constants[schema.getEnumOrdinal(symbol)]);
+            }
+            return Map.copyOf(symbols);
+        });
+    }
+
+    /**
+     * Create a new, empty, instance of a SpecificRecord class using its cached no-arg constructor.
+     *
+     * @param clazz the SpecificRecord class to instantiate
+     * @param <T>   The type of the Avro object
+     * @return the new instance
+     */
+    @SuppressWarnings("unchecked")
+    public static <T extends SpecificRecordBase> T newInstance(Class<T> clazz) {
+        try {
+            return ((Constructor<T>) CONSTRUCTORS.computeIfAbsent(clazz, SchemaClassRegistry::noArgConstructor)).newInstance();
+        } catch (ReflectiveOperationException e) {
+            throw new AvroJsonMapperException("Failed to instantiate " + clazz.getName(), e);
+        }
+    }
+
+    /**
+     * Resolve and cache every record class (and its constructor) and every enum symbol table reachable from the given root records.
+     *
+     * @param baseNamespace base namespace for the generated SpecificRecord classes
+     * @param rootClasses   the root SpecificRecord classes used in the conversions
+     * @return the reachable record and enum classes, roots included, in discovery order
+     */
+    public static Set<Class<?>> warmUp(String baseNamespace, List<Class<? extends SpecificRecordBase>> rootClasses) {
+        var reachable = walk(baseNamespace, rootClasses);
+        reachable.forEach((clazz, schema) -> {
+            if (schema.getType() == Schema.Type.ENUM) {
+                enumSymbols(baseNamespace, schema);
+            } else {
+                CONSTRUCTORS.computeIfAbsent(clazz, SchemaClassRegistry::noArgConstructor);
+            }
+        });
+        return Collections.unmodifiableSet(reachable.keySet());
+    }
+
+    /**
+     * Walk the schemas of the given root records and resolve every record and enum class found in their fields, array items and unions.
+     *
+     * @param baseNamespace base namespace for the generated SpecificRecord classes
+     * @param rootClasses   the root SpecificRecord classes
+     * @return the reachable record and enum classes, roots included, in discovery order
+     */
+    public static Set<Class<?>> reachableClasses(String baseNamespace, List<Class<? extends SpecificRecordBase>> rootClasses) {
+        return Collections.unmodifiableSet(walk(baseNamespace, rootClasses).keySet());
+    }
+
+    private static Map<Class<?>, Schema> walk(String baseNamespace, List<Class<? extends SpecificRecordBase>> rootClasses) {
+        Map<Class<?>, Schema> reachable = new LinkedHashMap<>();
+        var pending = new ArrayDeque<Schema>();
+
+        for (var rootClass : rootClasses) {
+            CLASSES.putIfAbsent(rootClass.getName(), rootClass);
+            if (!reachable.containsKey(rootClass)) {
+                var schema = newInstance(rootClass).getSchema();
+                reachable.put(rootClass, schema);
+                pending.add(schema);
+            }
+        }
+
+        while (!pending.isEmpty()) {
+            for (Schema.Field field : pending.poll().getFields()) {
+                for (Schema namedSchema : nestedNamedTypes(field.schema())) {
+                    if (namedSchema.getType() == Schema.Type.RECORD) {
+                        if (reachable.putIfAbsent(resolveClass(baseNamespace, namedSchema.getName()), namedSchema) == null) {
+                            pending.add(namedSchema);
+                        }
+                    } else {
+                        reachable.putIfAbsent(CLASSES.computeIfAbsent(baseNamespace + "." + namedSchema.getName(), SchemaClassRegistry::forName), namedSchema);
+                    }
+                }
+            }
+        }
+        return reachable;
+    }
+
+    private static Set<Schema> nestedNamedTypes(Schema schema) {
+        Set<Schema> namedTypes = new LinkedHashSet<>();
+        switch (schema.getType()) {
+            case RECORD, ENUM -> namedTypes.add(schema);
+            case ARRAY -> namedTypes.addAll(nestedNamedTypes(schema.getElementType()));
+            case MAP -> namedTypes.addAll(nestedNamedTypes(schema.getValueType()));
+            case UNION -> schema.getTypes().forEach(s -> namedTypes.addAll(nestedNamedTypes(s)));
+            default -> {
+                // primitive types: nothing to resolve
+            }
+        }
+        return namedTypes;
+    }
+
+    private static Class<?> forName(String className) {
+        try {
+            return Class.forName(className);
+        } catch (ClassNotFoundException e) {
+            throw new AvroJsonMapperException("Failed to resolve class " + className, e);
+        }
+    }
+
+    private static Constructor<?> noArgConstructor(Class<?> clazz) {
+        try {
+            return clazz.getDeclaredConstructor();
+        } catch (NoSuchMethodException e) {
+            throw new AvroJsonMapperException("No default constructor found for " + clazz.getName(), e);
+        }
+    }
+}
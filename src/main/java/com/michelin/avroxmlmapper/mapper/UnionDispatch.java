@@ -0,0 +1,156 @@
+package com.michelin.avroxmlmapper.mapper;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import org.apache.avro.Schema;
+import org.apache.avro.generic.GenericContainer;
+import org.apache.avro.generic.GenericEnumSymbol;
+
+import java.math.BigDecimal;
+import java.nio.ByteBuffer;
+import java.time.Instant;
+import java.util.Collection;
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Dispatch tables of a union schema, computed once per union: the branch to decode depending on the JSON token type,
+ * and the branch to encode depending on the Java type of the Avro value.
+ */
+final class UnionDispatch {
+
+    private static final Map<Schema, UnionDispatch> DISPATCHES = new ConcurrentHashMap<>();
+
+    /**
+     * Category of a JSON token, used as index of the decoding table.
+     */
+    private enum JsonCategory {
+        NULL, BOOLEAN, INT_NUMBER, LONG_NUMBER, DECIMAL_NUMBER, STRING, OBJECT, ARRAY
+    }
+
+    // Preferred branch types for each JSON category, in order
+    private static final Map<JsonCategory, List<Schema.Type>> PREFERENCES = Map.of(
+            JsonCategory.NULL, List.of(Schema.Type.NULL),
+            JsonCategory.BOOLEAN, List.of(Schema.Type.BOOLEAN, Schema.Type.STRING),
+            JsonCategory.INT_NUMBER, List.of(Schema.Type.INT, Schema.Type.LONG, Schema.Type.DOUBLE, Schema.Type.FLOAT, Schema.Type.STRING),
+            JsonCategory.LONG_NUMBER, List.of(Schema.Type.LONG, Schema.Type.DOUBLE, Schema.Type.FLOAT, Schema.Type.STRING),
+            JsonCategory.DECIMAL_NUMBER, List.of(Schema.Type.DOUBLE, Schema.Type.FLOAT, Schema.Type.STRING),
+            // strings also carry the numbers and dates encoded as text
+            JsonCategory.STRING, List.of(Schema.Type.STRING, Schema.Type.ENUM, Schema.Type.LONG, Schema.Type.INT, Schema.Type.DOUBLE, Schema.Type.FLOAT, Schema.Type.BOOLEAN),
+            JsonCategory.OBJECT, List.of(Schema.Type.RECORD, Schema.Type.MAP),
+            JsonCategory.ARRAY, List.of(Schema.Type.ARRAY)
+    );
+
+    private final Schema[] decodingTable = new Schema[JsonCategory.values().length];
+
+    private final Map<Schema.Type, Schema> branchesByType = new EnumMap<>(Schema.Type.class);
+
+    private final Map<String, Schema> recordsByName = new HashMap<>();
+
+    private final boolean multiBranch;
+
+    private UnionDispatch(Schema union) {
+        this.multiBranch = union.getTypes().stream().filter(s -> s.getType() != Schema.Type.NULL).count() > 1;
+        for (Schema branch : union.getTypes()) {
+            branchesByType.putIfAbsent(branch.getType(), branch);
+            if (branch.getType() == Schema.Type.RECORD) {
+                recordsByName.put(branch.getFullName(), branch);
+            }
+        }
+        for (JsonCategory category : JsonCategory.values()) {
+            decodingTable[category.ordinal()] = PREFERENCES.get(category).stream()
+                    .map(branchesByType::get)
+                    .filter(Objects::nonNull)
+                    .findFirst().orElse(null);
+        }
+    }
+
+    /**
+     * Get the (cached) dispatch tables of a union schema.
+     *
+     * @param union the union schema
+     * @return the dispatch tables
+     */
+    static UnionDispatch of(Schema union) {
+        return DISPATCHES.computeIfAbsent(union, UnionDispatch::new);
+    }
+
+    /**
+     * A union needs a dispatch when it has more than one non-null branch. Other unions always use their non-null branch.
+     *
+     * @return true if the union has several non-null branches
+     */
+    boolean isMultiBranch() {
+        return multiBranch;
+    }
+
+    /**
+     * Choose the branch to decode a JSON-node into.
+     *
+     * @param node the JSON-node
+     * @return the branch, or null if no branch can hold the node
+     */
+    Schema branchFor(JsonNode node) {
+        return decodingTable[category(node).ordinal()];
+    }
+
+    /**
+     * Choose the branch an Avro value belongs to.
+     *
+     * @param value the Avro value
+     * @return the branch, or null if no branch can hold the value
+     */
+    Schema branchOf(Object value) {
+        if (value == null) {
+            return branchesByType.get(Schema.Type.NULL);
+        }
+        if (value instanceof CharSequence) {
+            return branchesByType.get(Schema.Type.STRING);
+        }
+        if (value instanceof Integer) {
+            return branchesByType.get(Schema.Type.INT);
+        }
+        if (value instanceof Long || value instanceof Instant) {
+            return branchesByType.get(Schema.Type.LONG);
+        }
+        if (value instanceof Double) {
+            return branchesByType.get(Schema.Type.DOUBLE);
+        }
+        if (value instanceof Float) {
+            return branchesByType.get(Schema.Type.FLOAT);
+        }
+        if (value instanceof Boolean) {
+            return branchesByType.get(Schema.Type.BOOLEAN);
+        }
+        if (value instanceof Enum<?> || value instanceof GenericEnumSymbol<?>) {
+            return branchesByType.get(Schema.Type.ENUM);
+        }
+        if (value instanceof GenericContainer container && container.getSchema().getType() == Schema.Type.RECORD) {
+            return recordsByName.get(container.getSchema().getFullName());
+        }
+        if (value instanceof Collection<?>) {
+            return branchesByType.get(Schema.Type.ARRAY);
+        }
+        if (value instanceof Map<?, ?>) {
+            return branchesByType.get(Schema.Type.MAP);
+        }
+        if (value instanceof ByteBuffer || value instanceof BigDecimal) {
+            return branchesByType.get(Schema.Type.BYTES);
+        }
+        return null;
+    }
+
+    private static JsonCategory category(JsonNode node) {
+        return switch (node.getNodeType()) {
+            case NULL, MISSING -> JsonCategory.NULL;
+            case BOOLEAN -> JsonCategory.BOOLEAN;
+            case NUMBER -> node.isIntegralNumber() ? (node.canConvertToInt() ? JsonCategory.INT_NUMBER : JsonCategory.LONG_NUMBER) : JsonCategory.DECIMAL_NUMBER;
+            case OBJECT, POJO -> JsonCategory.OBJECT;
+            case ARRAY -> JsonCategory.ARRAY;
+            default -> JsonCategory.STRING;
+        };
+    }
+}
@@ -49,6 +49,23 @@ public final class GenericUtils {
     }
 
     /**
+     * Evaluate a string value as a jackson JsonNode of any kind (object, array...)
+     *
+     * @param strValue         the string value to evaluate
+     * @return the evaluated JsonNode
+     */
+    public static JsonNode stringToJsonNode(String strValue) {
+        try {
+            return new ObjectMapper().readTree(strValue);
+        } catch (JsonProcessingException e) {
+            throw new AvroJsonMapperException("Json Message not parsable", e);
+        }
+    }
+
+    /**
+     * Evaluate a jsonpath expression from a node. See {@link JsonPath} for the supported syntax.
+     * <p>For backward compatibility, a bare field name (without any '.', '[', '$' or '*') keeps matching the fields of that name
+     * at any depth, as {@link JsonNode#findValues(String)} does.</p>
      *
      * @param node             the JsonNode to evaluate
      * @param jsonPathExpression  the jsonpath expression to match
@@ -58,7 +75,7 @@ public final class GenericUtils {
         List<JsonNode> result = null;
 
         try {
-            result = node.findValues(jsonPathExpression);
+            result = isBareName(jsonPathExpression) ? node.findValues(jsonPathExpression) : JsonPath.compile(jsonPathExpression).evaluate(node);
         } catch (Exception e) {
             throw new AvroJsonMapperException("Failed to execute jsonpath " + jsonPathExpression, e);
         }
@@ -66,9 +83,23 @@ public final class GenericUtils {
         return result;
     }
 
+    private static boolean isBareName(String jsonPathExpression) {
+        return !jsonPathExpression.isEmpty() && jsonPathExpression.chars().noneMatch(c -> c == '.' || c == '[' || c == '$' || c == '*');
+    }
+
 
 
 
+    /**
+     * Get the text of a scalar JSON node: strings, but also numbers and booleans.
+     *
+     * @param node the JSON node
+     * @return the text of the node, or null for null and container nodes
+     */
+    public static String textValueOf(JsonNode node) {
+        return node.isValueNode() && !node.isNull() ? node.asText() : null;
+    }
+
     /**
      * Try to parse a string value to the Java type based on Schema type.
      *
@@ -0,0 +1,371 @@
+package com.michelin.avroxmlmapper.utility;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.michelin.avroxmlmapper.exception.AvroJsonMapperException;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Objects;
+
+/**
+ * Compiled form of a jsonpath expression, as a list of steps applied one after the other from the current node.
+ * <p>The supported subset is:</p>
+ * <ul>
+ *     <li>{@code name} / {@code .name} / {@code ['name']}: child field</li>
+ *     <li>{@code [index]}: array element</li>
+ *     <li>{@code *} / {@code [*]}: every child (array elements or object values)</li>
+ *     <li>{@code ..name} / {@code ..*}: recursive descent</li>
+ *     <li>{@code [?(@.path=='value')]}, {@code [?(@.path!='value')]} and {@code [?(@.path)]}: filter on the children</li>
+ * </ul>
+ * <p>An optional leading {@code $} is accepted. An empty expression matches the current node.</p>
+ */
+public final class JsonPath {
+
+    private final String expression;
+
+    private final List<Step> steps;
+
+    private final boolean definite;
+
+    private final List<String> pointer;
+
+    private JsonPath(String expression, List<Step> steps) {
+        this.expression = expression;
+        this.steps = Collections.unmodifiableList(steps);
+        this.definite = steps.stream().allMatch(step -> step instanceof Child || step instanceof Index);
+        this.pointer = definite ? steps.stream().map(step -> step instanceof Child child ? child.name() : String.valueOf(((Index) step).index())).toList() : null;
+    }
+
+    /**
+     * Compile a jsonpath expression. The result is not cached here, since expressions may be built dynamically:
+     * callers evaluating the same expression repeatedly keep the compiled form, as the record plans do.
+     *
+     * @param expression the jsonpath expression
+     * @return the compiled expression
+     */
+    public static JsonPath compile(String expression) {
+        return new JsonPath(expression, new Parser(expression).parse());
+    }
+
+    /**
+     * @return the original expression
+     */
+    public String getExpression() {
+        return expression;
+    }
+
+    /**
+     * @return the compiled steps
+     */
+    List<Step> getSteps() {
+        return steps;
+    }
+
+    /**
+     * A definite path (only child fields and array indexes) matches at most one node.
+     *
+     * @return true if the path is definite
+     */
+    public boolean isDefinite() {
+        return definite;
+    }
+
+    /**
+     * The reference tokens of the JSON Pointer (RFC 6901) equivalent to a definite path, for instance {@code [a, 0, b]} for {@code a[0].b}.
+     *
+     * @return the unescaped reference tokens, or null if the path is not definite
+     */
+    public List<String> getPointer() {
+        return pointer;
+    }
+
+    /**
+     * Evaluate the expression from a node.
+     *
+     * @param node the node to evaluate the expression from
+     * @return the matched nodes, in document order
+     */
+    public List<JsonNode> evaluate(JsonNode node) {
+        List<JsonNode> current = List.of(node);
+        for (Step step : steps) {
+            if (current.isEmpty()) {
+                break;
+            }
+            current = step.apply(current);
+        }
+        return current;
+    }
+
+    /**
+     * Evaluate the expression from a node and return the first match.
+     *
+     * @param node the node to evaluate the expression from
+     * @return the first matched node, or null
+     */
+    public JsonNode evaluateFirst(JsonNode node) {
+        var result = evaluate(node);
+        return result.isEmpty() ? null : result.get(0);
+    }
+
+    /**
+     * Two paths are equal when they compile to the same steps, whatever their spelling ({@code $.a} and {@code a} for instance),
+     * so that identical steps, filters included, are shared by the automaton of {@link JsonPathMatcher}.
+     */
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) {
+            return true;
+        }
+        return o instanceof JsonPath other && steps.equals(other.steps);
+    }
+
+    @Override
+    public int hashCode() {
+        return steps.hashCode();
+    }
+
+    @Override
+    public String toString() {
+        return expression;
+    }
+
+    /* ****************************** */
+    /* Steps of a compiled expression */
+    /* ****************************** */
+
+    /**
+     * A single step of a compiled expression, transforming the list of current nodes into the list of next nodes.
+     */
+    sealed interface Step permits Child, Index, Wildcard, RecursiveDescent, Filter {
+
+        void collect(JsonNode node, List<JsonNode> result);
+
+        default List<JsonNode> apply(List<JsonNode> nodes) {
+            var result = new ArrayList<JsonNode>(nodes.size());
+            for (JsonNode node : nodes) {
+                collect(node, result);
+            }
+            return result;
+        }
+    }
+
+    record Child(String name) implements Step {
+        @Override
+        public void collect(JsonNode node, List<JsonNode> result) {
+            var child = node.get(name);
+            if (child != null) {
+                result.add(child);
+            }
+        }
+    }
+
+    record Index(int index) implements Step {
+        @Override
+        public void collect(JsonNode node, List<JsonNode> result) {
+            var child = node.get(index);
+            if (child != null) {
+                result.add(child);
+            }
+        }
+    }
+
+    record Wildcard() implements Step {
+        @Override
+        public void collect(JsonNode node, List<JsonNode> result) {
+            if (node.isContainerNode()) {
+                node.elements().forEachRemaining(result::add);
+            }
+        }
+    }
+
+    /**
+     * Recursive descent on a field name, or on every descendant when the name is null.
+     */
+    record RecursiveDescent(String name) implements Step {
+        @Override
+        public void collect(JsonNode node, List<JsonNode> result) {
+            if (node.isObject()) {
+                node.fields().forEachRemaining(entry -> {
+                    if (name == null || name.equals(entry.getKey())) {
+                        result.add(entry.getValue());
+                    }
+                    collect(entry.getValue(), result);
+                });
+            } else if (node.isArray()) {
+                for (JsonNode element : node) {
+                    if (name == null) {
+                        result.add(element);
+                    }
+                    collect(element, result);
+                }
+            }
+        }
+    }
+
+    /**
+     * Filter on the children of the current node. The operand path is relative to each child ({@code @}).
+     * A null operator only checks for the existence of the operand.
+     */
+    record Filter(JsonPath operand, String operator, String value) implements Step {
+        @Override
+        public void collect(JsonNode node, List<JsonNode> result) {
+            if (node.isContainerNode()) {
+                for (JsonNode element : node) {
+                    if (matches(element)) {
+                        result.add(element);
+                    }
+                }
+            }
+        }
+
+        boolean matches(JsonNode element) {
+            var target = operand.evaluateFirst(element);
+            if (operator == null) {
+                return target != null;
+            }
+            var equal = target != null && Objects.equals(value, target.isNull() ? null : target.asText());
+            return operator.equals("==") == equal;
+        }
+    }
+
+    /* ***************** */
+    /* Expression parser */
+    /* ***************** */
+
+    private static final class Parser {
+
+        private final String expression;
+
+        private int position;
+
+        private Parser(String expression) {
+            this.expression = expression;
+        }
+
+        private List<Step> parse() {
+            var steps = new ArrayList<Step>();
+            if (peek('$')) {
+                position++;
+            }
+            if (position < expression.length() && !peek('.') && !peek('[')) {
+                steps.add(nameStep(readName()));
+            }
+            while (position < expression.length()) {
+                if (expression.startsWith("..", position)) {
+                    position += 2;
+                    var name = readName();
+                    steps.add(new RecursiveDescent(name.equals("*") ? null : name));
+                } else if (peek('.')) {
+                    position++;
+                    steps.add(nameStep(readName()));
+                } else if (peek('[')) {
+                    steps.add(readBracket());
+                } else {
+                    throw error("unexpected character '" + expression.charAt(position) + "'");
+                }
+            }
+            return steps;
+        }
+
+        private Step nameStep(String name) {
+            return name.equals("*") ? new Wildcard() : new Child(name);
+        }
+
+        private String readName() {
+            var start = position;
+            while (position < expression.length() && !peek('.') && !peek('[')) {
+                position++;
+            }
+            if (start == position) {
+                throw error("empty field name");
+            }
+            return expression.substring(start, position);
+        }
+
+        private Step readBracket() {
+            if (expression.startsWith("[?(", position)) {
+                var end = indexOutsideQuotes(expression, ")]", position);
+                if (end < 0) {
+                    throw error("unterminated filter");
+                }
+                var filter = readFilter(expression.substring(position + 3, end).trim());
+                position = end + 2;
+                return filter;
+            }
+            var end = indexOutsideQuotes(expression, "]", position);
+            if (end < 0) {
+                throw error("unterminated bracket");
+            }
+            var content = expression.substring(position + 1, end).trim();
+            position = end + 1;
+
+            if (content.equals("*")) {
+                return new Wildcard();
+            }
+            if (isQuoted(content)) {
+                return new Child(content.substring(1, content.length() - 1));
+            }
+            try {
+                return new Index(Integer.parseInt(content));
+            } catch (NumberFormatException e) {
+                throw error("invalid array index '" + content + "'");
+            }
+        }
+
+        private Filter readFilter(String content) {
+            if (!content.startsWith("@")) {
+                throw error("filter must start with '@'");
+            }
+            var operatorIndex = indexOutsideQuotes(content, "==", 0);
+            if (operatorIndex < 0) {
+                operatorIndex = indexOutsideQuotes(content, "!=", 0);
+            }
+            if (operatorIndex < 0) {
+                return new Filter(compile(content.substring(1)), null, null);
+            }
+
+            var operand = compile(content.substring(1, operatorIndex).trim());
+            var operator = content.substring(operatorIndex, operatorIndex + 2);
+            var value = content.substring(operatorIndex + 2).trim();
+            if (isQuoted(value)) {
+                value = value.substring(1, value.length() - 1);
+            } else if (value.equals("null")) {
+                value = null;
+            }
+            return new Filter(operand, operator, value);
+        }
+
+        // Like String.indexOf, skipping the quoted strings (a bracket or an operator can appear in a quoted name or value)
+        private static int indexOutsideQuotes(String text, String token, int from) {
+            char quote = 0;
+            for (int i = from; i < text.length(); i++) {
+                char c = text.charAt(i);
+                if (quote != 0) {
+                    if (c == quote) {
+                        quote = 0;
+                    }
+                } else if (c == '\'' || c == '"') {
+                    quote = c;
+                } else if (text.startsWith(token, i)) {
+                    return i;
+                }
+            }
+            return -1;
+        }
+
+        private boolean isQuoted(String content) {
+            return content.length() >= 2
+                    && (content.charAt(0) == '\'' || content.charAt(0) == '"')
+                    && content.charAt(content.length() - 1) == content.charAt(0);
+        }
+
+        private boolean peek(char c) {
+            return position < expression.length() && expression.charAt(position) == c;
+        }
+
+        private AvroJsonMapperException error(String reason) {
+            return new AvroJsonMapperException("Invalid jsonpath " + expression + ": " + reason + " at position " + position);
+        }
+    }
+}
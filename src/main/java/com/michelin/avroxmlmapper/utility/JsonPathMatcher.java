@@ -0,0 +1,222 @@
+package com.michelin.avroxmlmapper.utility;
+
+import com.fasterxml.jackson.databind.JsonNode;
+
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Matching automaton built from a list of compiled jsonpath expressions.
+ * <p>The expressions are merged into a prefix tree of steps, then evaluated in a single depth-first pass over the document:
+ * each node is visited once, with the set of states it reaches, and the recursive descents stay active while descending.
+ * So the steps shared by several expressions (the common parent objects of the fields of a record...) are evaluated once,
+ * and any number of recursive descents ({@code ..id}, {@code ..tags}...) cost a single traversal of the document.</p>
+ * <p>A node reaching a state through several routes (nested matches of a recursive descent for instance) is matched once.</p>
+ */
+public final class JsonPathMatcher {
+
+    private final State root;
+
+    private final List<State> accepting;
+
+    private int stateCount;
+
+    /**
+     * Build the automaton matching all the given expressions.
+     *
+     * @param paths the compiled expressions, a null entry never matches
+     */
+    public JsonPathMatcher(List<JsonPath> paths) {
+        this.root = newState();
+        this.accepting = new ArrayList<>(paths.size());
+        for (JsonPath path : paths) {
+            if (path == null) {
+                accepting.add(null);
+                continue;
+            }
+            var state = root;
+            for (JsonPath.Step step : path.getSteps()) {
+                var parent = state;
+                state = parent.transitions.computeIfAbsent(step, s -> {
+                    var next = newState();
+                    if (s instanceof JsonPath.RecursiveDescent descent) {
+                        parent.descents.add(new Descent(descent.name(), next));
+                    }
+                    return next;
+                });
+            }
+            state.accepting = true;
+            accepting.add(state);
+        }
+        root.seal();
+    }
+
+    private State newState() {
+        return new State(stateCount++);
+    }
+
+    /**
+     * Evaluate all the expressions in a single pass over the document.
+     *
+     * @param node the node to evaluate the expressions from
+     * @return for each expression, by index, the matched nodes in document order
+     */
+    public List<List<JsonNode>> evaluate(JsonNode node) {
+        @SuppressWarnings("unchecked")
+        List<JsonNode>[] matches = (List<JsonNode>[]) new List<?>[stateCount];
+        visit(node, List.of(root), List.of(), matches);
+
+        var result = new ArrayList<List<JsonNode>>(accepting.size());
+        for (State state : accepting) {
+            result.add(state == null || matches[state.id] == null ? List.of() : matches[state.id]);
+        }
+        return result;
+    }
+
+    /**
+     * @param node     the visited node
+     * @param states   the states reached by the node, without duplicates
+     * @param descents the recursive descents started by the ancestors of the node, applying to its children
+     * @param matches  the nodes matched so far, by state id
+     */
+    private void visit(JsonNode node, List<State> states, List<Descent> descents, List<JsonNode>[] matches) {
+        var childDescents = descents;
+        var childSteps = false;
+        for (State state : states) {
+            if (state.accepting) {
+                if (matches[state.id] == null) {
+                    matches[state.id] = new ArrayList<>();
+                }
+                matches[state.id].add(node);
+            }
+            if (!state.descents.isEmpty()) {
+                childDescents = childDescents == descents ? new ArrayList<>(descents) : childDescents;
+                for (Descent descent : state.descents) {
+                    addIfAbsent(childDescents, descent);
+                }
+            }
+            childSteps |= state.transitions.size() > state.descents.size();
+        }
+
+        if (!node.isContainerNode() || (!childSteps && childDescents.isEmpty())) {
+            return;
+        }
+
+        if (states.size() == 1 && childDescents.isEmpty() && states.get(0).definiteOnly) {
+            // only child fields and array indexes to follow: look them up instead of iterating over the children
+            var state = states.get(0);
+            for (int i = 0; i < state.steps.length; i++) {
+                var child = state.steps[i] instanceof JsonPath.Child step ? node.get(step.name()) : node.get(((JsonPath.Index) state.steps[i]).index());
+                if (child != null) {
+                    visit(child, state.targetList.get(i), childDescents, matches);
+                }
+            }
+            return;
+        }
+
+        if (node.isObject()) {
+            for (Iterator<Map.Entry<String, JsonNode>> fields = node.fields(); fields.hasNext(); ) {
+                var field = fields.next();
+                visitChild(field.getValue(), field.getKey(), -1, states, childDescents, matches);
+            }
+        } else {
+            for (int i = 0; i < node.size(); i++) {
+                visitChild(node.get(i), null, i, states, childDescents, matches);
+            }
+        }
+    }
+
+    /**
+     * @param child    the child node
+     * @param name     the field name of the child, null for an array element
+     * @param index    the index of the child, for an array element
+     * @param states   the states reached by the parent node
+     * @param descents the recursive descents applying to the child
+     * @param matches  the nodes matched so far, by state id
+     */
+    private void visitChild(JsonNode child, String name, int index, List<State> states, List<Descent> descents, List<JsonNode>[] matches) {
+        List<State> next = null;
+        for (State state : states) {
+            for (int i = 0; i < state.steps.length; i++) {
+                if (accepts(state.steps[i], child, name, index)) {
+                    next = addIfAbsent(next, state.targets[i]);
+                }
+            }
+        }
+        for (Descent descent : descents) {
+            // as for Jackson's findValues, a named descent only matches object fields
+            if (descent.name() == null || descent.name().equals(name)) {
+                next = addIfAbsent(next, descent.target());
+            }
+        }
+
+        if (next != null || !descents.isEmpty()) {
+            visit(child, next == null ? List.of() : next, descents, matches);
+        }
+    }
+
+    private static boolean accepts(JsonPath.Step step, JsonNode child, String name, int index) {
+        if (step instanceof JsonPath.Child childStep) {
+            return childStep.name().equals(name);
+        }
+        if (step instanceof JsonPath.Index indexStep) {
+            return name == null && indexStep.index() == index;
+        }
+        if (step instanceof JsonPath.Filter filter) {
+            return filter.matches(child);
+        }
+        return step instanceof JsonPath.Wildcard; // recursive descents are carried by the descents of the visit
+    }
+
+    private static <T> List<T> addIfAbsent(List<T> list, T element) {
+        if (list == null) {
+            list = new ArrayList<>(2);
+        } else if (list.contains(element)) {
+            return list;
+        }
+        list.add(element);
+        return list;
+    }
+
+    /**
+     * A recursive descent started from a state: every descendant named {@code name} (any descendant if null) reaches {@code target}.
+     */
+    private record Descent(String name, State target) {
+    }
+
+    private static final class State {
+
+        private final int id;
+
+        private final Map<JsonPath.Step, State> transitions = new LinkedHashMap<>();
+
+        private final List<Descent> descents = new ArrayList<>();
+
+        private boolean accepting;
+
+        // flattened transitions, computed once the automaton is built
+        private JsonPath.Step[] steps;
+
+        private State[] targets;
+
+        private List<List<State>> targetList;
+
+        // only child fields and array indexes leave this state
+        private boolean definiteOnly;
+
+        private State(int id) {
+            this.id = id;
+        }
+
+        private void seal() {
+            steps = transitions.keySet().toArray(JsonPath.Step[]::new);
+            targets = transitions.values().toArray(State[]::new);
+            targetList = transitions.values().stream().map(List::of).toList();
+            definiteOnly = transitions.keySet().stream().allMatch(step -> step instanceof JsonPath.Child || step instanceof JsonPath.Index);
+            transitions.values().forEach(State::seal);
+        }
+    }
+}
@@ -0,0 +1,88 @@
+package com.michelin.avroxmlmapper.utility;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ArrayNode;
+import com.michelin.avroxmlmapper.exception.AvroJsonMapperException;
+import com.michelin.avroxmlmapper.mapper.SchemaClassRegistry;
+import org.apache.avro.specific.SpecificRecordBase;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Build-time generator of the GraalVM native-image reflection metadata (reflect-config.json) needed by the mappings.
+ * <p>Every record and enum class reachable from the given roots is registered, since they are resolved by name and instantiated (or enumerated) reflectively during the conversions.</p>
+ * <p>Usage: {@code NativeImageConfigGenerator <outputFile> <baseNamespace> <rootClass>...}, for example through the exec-maven-plugin in the
+ * process-classes phase, writing to {@code META-INF/native-image/<groupId>/<artifactId>/reflect-config.json}.</p>
+ */
+public final class NativeImageConfigGenerator {
+
+    private static final ObjectMapper mapper = new ObjectMapper();
+
+    private NativeImageConfigGenerator() {
+    }
+
+    /**
+     * Generate the reflect-config.json file.
+     *
+     * @param args the output file, the base namespace and the fully qualified names of the root record classes
+     */
+    public static void main(String[] args) {
+        if (args.length < 3) {
+            throw new IllegalArgumentException("Usage: NativeImageConfigGenerator <outputFile> <baseNamespace> <rootClass>...");
+        }
+
+        var rootClasses = new ArrayList<Class<? extends SpecificRecordBase>>();
+        for (String className : Arrays.asList(args).subList(2, args.length)) {
+            try {
+                rootClasses.add(Class.forName(className).asSubclass(SpecificRecordBase.class));
+            } catch (ClassNotFoundException e) {
+                throw new AvroJsonMapperException("Failed to resolve root class " + className, e);
+            }
+        }
+
+        writeReflectConfig(Path.of(args[0]), args[1], rootClasses);
+    }
+
+    /**
+     * Write the reflection metadata of every record and enum class reachable from the given roots into a file.
+     *
+     * @param outputFile    the reflect-config.json file to write
+     * @param baseNamespace base namespace for the generated SpecificRecord classes
+     * @param rootClasses   the root SpecificRecord classes
+     */
+    public static void writeReflectConfig(Path outputFile, String baseNamespace, List<Class<? extends SpecificRecordBase>> rootClasses) {
+        try {
+            if (outputFile.getParent() != null) {
+                Files.createDirectories(outputFile.getParent());
+            }
+            Files.writeString(outputFile, mapper.writerWithDefaultPrettyPrinter().writeValueAsString(buildReflectConfig(baseNamespace, rootClasses)));
+        } catch (IOException e) {
+            throw new AvroJsonMapperException("Failed to write native-image configuration to " + outputFile, e);
+        }
+    }
+
+    /**
+     * Build the reflection metadata of every record and enum class reachable from the given roots.
+     *
+     * @param baseNamespace base namespace for the generated SpecificRecord classes
+     * @param rootClasses   the root SpecificRecord classes
+     * @return the reflect-config.json content
+     */
+    public static ArrayNode buildReflectConfig(String baseNamespace, List<Class<? extends SpecificRecordBase>> rootClasses) {
+        var config = mapper.createArrayNode();
+        for (var clazz : SchemaClassRegistry.reachableClasses(baseNamespace, rootClasses)) {
+            config.addObject()
+                    .put("name", clazz.getName())
+                    .put("allDeclaredConstructors", true)
+                    .put("allPublicConstructors", true)
+                    .put("allDeclaredFields", true)
+                    .put("allPublicMethods", true);
+        }
+        return config;
+    }
+}
@@ -0,0 +1,108 @@
+package com.michelin.avroxmlmapper;
+
+
+import com.michelin.avroxmlmapper.mapper.AvroJsonMapper;
+import io.confluent.ps.demo.*;
+import org.apache.commons.io.IOUtils;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.Arguments;
+import org.junit.jupiter.params.provider.MethodSource;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.lang.management.ManagementFactory;
+import java.nio.charset.StandardCharsets;
+import java.util.Objects;
+import java.util.function.Supplier;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.junit.jupiter.api.Assumptions.assumeTrue;
+
+/**
+ * Allocation budgets of the conversions: each scenario declares the maximum number of bytes a single conversion may allocate,
+ * measured with the per-thread allocation counters of the JVM. A change allocating more than the budget fails the build.
+ * When a change legitimately needs more (or allocates less), update the budget of the scenario in the same change.
+ */
+class AllocationBudgetTest {
+
+    private static final int WARMUP_ITERATIONS = 2_000;
+
+    private static final int MEASURED_ITERATIONS = 1_000;
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(AllocationBudgetTest.class);
+
+    // Every conversion result is published here, so the JIT cannot eliminate the conversions (or their allocations) as dead code
+    private static volatile Object sink;
+
+    private static com.sun.management.ThreadMXBean threadMXBean;
+
+    @BeforeAll
+    static void setUp() {
+        var bean = ManagementFactory.getThreadMXBean();
+        assumeTrue(bean instanceof com.sun.management.ThreadMXBean, "Thread allocation counters are not available on this JVM");
+        threadMXBean = (com.sun.management.ThreadMXBean) bean;
+        assumeTrue(threadMXBean.isThreadAllocatedMemorySupported(), "Thread allocation counters are not supported on this JVM");
+        threadMXBean.setThreadAllocatedMemoryEnabled(true);
+    }
+
+    static Stream<Arguments> scenarios() {
+        var basic = resource("/basic.json");
+        var skipLevel = resource("/skipLevel.json");
+        var arrays = resource("/arrays.json");
+        var jsonpath = resource("/jsonpath.json");
+        var union = resource("/union.json");
+
+        var basicRecord = AvroJsonMapper.convertJsonStringToAvro(basic, "io.confluent.ps.demo", TestBasicRecord.class);
+        var arrayRecord = AvroJsonMapper.convertJsonStringToAvro(arrays, "io.confluent.ps.demo", TestArrayRecord.class);
+
+        return Stream.of(
+                scenario("json to avro - basic", 13_000,
+                        () -> AvroJsonMapper.convertJsonStringToAvro(basic, "io.confluent.ps.demo", TestBasicRecord.class)),
+                scenario("json to avro - skip levels", 14_000,
+                        () -> AvroJsonMapper.convertJsonStringToAvro(skipLevel, "io.confluent.ps.demo", TestSkipLevelRecord.class)),
+                scenario("json to avro - arrays", 16_000,
+                        () -> AvroJsonMapper.convertJsonStringToAvro(arrays, "io.confluent.ps.demo", TestArrayRecord.class)),
+                scenario("json to avro - jsonpath", 22_000,
+                        () -> AvroJsonMapper.convertJsonStringToAvro(jsonpath, "io.confluent.ps.demo", TestJsonPathRecord.class)),
+                scenario("json to avro - enums and unions", 15_000,
+                        () -> AvroJsonMapper.convertJsonStringToAvro(union, "io.confluent.ps.demo", TestUnionRecord.class)),
+                scenario("avro to json - basic", 11_000,
+                        () -> AvroJsonMapper.convertAvroToJsonString(basicRecord)),
+                scenario("avro to json - arrays", 11_000,
+                        () -> AvroJsonMapper.convertAvroToJsonString(arrayRecord))
+        );
+    }
+
+    @ParameterizedTest(name = "{0}")
+    @MethodSource("scenarios")
+    void testAllocationBudget(String name, long budgetBytes, Supplier<?> conversion) {
+        for (int i = 0; i < WARMUP_ITERATIONS; i++) {
+            sink = conversion.get();
+        }
+
+        long threadId = Thread.currentThread().getId();
+        long before = threadMXBean.getThreadAllocatedBytes(threadId);
+        for (int i = 0; i < MEASURED_ITERATIONS; i++) {
+            sink = conversion.get();
+        }
+        long bytesPerConversion = (threadMXBean.getThreadAllocatedBytes(threadId) - before) / MEASURED_ITERATIONS;
+
+        LOGGER.info("{}: {} bytes allocated per conversion (budget {})", name, bytesPerConversion, budgetBytes);
+        assertTrue(bytesPerConversion <= budgetBytes,
+                name + " allocates " + bytesPerConversion + " bytes per conversion, over its budget of " + budgetBytes + " bytes");
+    }
+
+    private static Arguments scenario(String name, long budgetBytes, Supplier<?> conversion) {
+        return Arguments.of(name, budgetBytes, conversion);
+    }
+
+    private static String resource(String path) {
+        try {
+            return IOUtils.toString(Objects.requireNonNull(AllocationBudgetTest.class.getResourceAsStream(path)), StandardCharsets.UTF_8);
+        } catch (Exception e) {
+            throw new IllegalStateException("Failed to read " + path, e);
+        }
+    }
+}
@@ -1,16 +1,28 @@
 package com.michelin.avroxmlmapper;
 
 
+import com.fasterxml.jackson.databind.JsonNode;
+import com.michelin.avroxmlmapper.exception.AvroJsonMapperException;
 import com.michelin.avroxmlmapper.mapper.AvroJsonMapper;
+import com.michelin.avroxmlmapper.mapper.SchemaClassRegistry;
+import com.michelin.avroxmlmapper.utility.GenericUtils;
+import com.michelin.avroxmlmapper.utility.JsonPath;
+import com.michelin.avroxmlmapper.utility.JsonPathMatcher;
+import com.michelin.avroxmlmapper.utility.NativeImageConfigGenerator;
 import io.confluent.ps.demo.*;
 import org.apache.commons.io.IOUtils;
 import org.junit.jupiter.api.Test;
 
 import java.nio.charset.StandardCharsets;
+import java.time.Instant;
 import java.util.List;
 import java.util.Objects;
+import java.util.Set;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
 
 class AvroJsonMapperTest {
 
@@ -59,7 +71,282 @@ class AvroJsonMapperTest {
         assertEquals(expectedModel, result);
     }
 
+    @Test
+    void testJsonToAvro_jsonpath() throws Exception {
+        var input = IOUtils.toString(Objects.requireNonNull(AvroJsonMapperTest.class.getResourceAsStream("/jsonpath.json")), StandardCharsets.UTF_8);
+
+        var result = AvroJsonMapper.convertJsonStringToAvro(input, "io.confluent.ps.demo", TestJsonPathRecord.class);
+
+        var expectedModel = TestJsonPathRecord.newBuilder()
+                .setNames(List.of("name1", "name2", "name3"))
+                .setIds(List.of("root-id", "item-id1", "item-id2"))
+                .setFirstBName("name2")
+                .setNotBRecords(List.of(
+                        EmbeddedRecord4.newBuilder().setName("name1").setType("A").build(),
+                        EmbeddedRecord4.newBuilder().setName("name3").setType("C").build()))
+                .setFirstRecord(EmbeddedRecord4.newBuilder().setName("name1").setType("A").build())
+                .setTags(List.of("tag1", "tag2", "tag3"))
+                .build();
+
+        assertEquals(expectedModel, result);
+    }
+
+    @Test
+    void testJsonpathNodeListEvaluation() throws Exception {
+        var input = GenericUtils.stringToJsonNode(IOUtils.toString(Objects.requireNonNull(AvroJsonMapperTest.class.getResourceAsStream("/jsonpath.json")), StandardCharsets.UTF_8));
+
+        // a bare name matches at any depth, a jsonpath only where it points to
+        assertEquals(List.of("root-id", "item-id1", "item-id2"), GenericUtils.jsonpathNodeListEvaluation(input, "id").stream().map(JsonNode::textValue).toList());
+        assertEquals(List.of("root-id"), GenericUtils.jsonpathNodeListEvaluation(input, "$.id").stream().map(JsonNode::textValue).toList());
+    }
+
+    @Test
+    void testJsonPathMatcher_sharedFilters() throws Exception {
+        var input = GenericUtils.stringToJsonNode(IOUtils.toString(Objects.requireNonNull(AvroJsonMapperTest.class.getResourceAsStream("/jsonpath.json")), StandardCharsets.UTF_8));
+        var path = JsonPath.compile("embedded.items[?(@.type=='B')].name");
+        var samePath = JsonPath.compile("$.embedded.items[?(@.type=='B')].name");
+
+        assertEquals(path, samePath);
+        assertEquals(path.hashCode(), samePath.hashCode());
+
+        // identical steps are merged into a single branch of the automaton, evaluated once for both expressions
+        var result = new JsonPathMatcher(List.of(path, samePath)).evaluate(input);
+        assertEquals(List.of("name2"), result.get(0).stream().map(JsonNode::textValue).toList());
+        assertSame(result.get(0), result.get(1));
+    }
+
+    @Test
+    void testJsonPathMatcher_singlePass() throws Exception {
+        var input = GenericUtils.stringToJsonNode(IOUtils.toString(Objects.requireNonNull(AvroJsonMapperTest.class.getResourceAsStream("/jsonpath.json")), StandardCharsets.UTF_8));
+        var paths = List.of(
+                JsonPath.compile("..id"),
+                JsonPath.compile("..tags"),
+                JsonPath.compile("embedded..name"),
+                JsonPath.compile("..items[*].tags[0]"),
+                JsonPath.compile("embedded.items[?(@.type!='B')].tags[*]"),
+                JsonPath.compile("..*"),
+                JsonPath.compile("embedded.items[1].id"),
+                JsonPath.compile(""));
+
+        // all the expressions evaluated together give the same nodes as each expression evaluated on its own
+        var result = new JsonPathMatcher(paths).evaluate(input);
+        for (int i = 0; i < paths.size(); i++) {
+            assertEquals(paths.get(i).evaluate(input), result.get(i), paths.get(i).getExpression());
+        }
+    }
+
+    @Test
+    void testJsonPath_quotedBrackets() {
+        var input = GenericUtils.stringToJsonNode("{\"items\": [{\"t\": \"a)]b\", \"v\": 1}, {\"t\": \"a\", \"v\": 2}], \"a]b\": {\"c==d\": 3}}");
+
+        assertEquals(List.of(1), JsonPath.compile("items[?(@.t=='a)]b')].v").evaluate(input).stream().map(JsonNode::intValue).toList());
+        assertEquals(List.of(3), JsonPath.compile("['a]b']['c==d']").evaluate(input).stream().map(JsonNode::intValue).toList());
+        assertEquals(List.of(2), JsonPath.compile("items[?(@.t!=\"a)]b\")].v").evaluate(input).stream().map(JsonNode::intValue).toList());
+    }
+
+    @Test
+    void testJsonToAvro_enumsAndUnions() throws Exception {
+        var input = IOUtils.toString(Objects.requireNonNull(AvroJsonMapperTest.class.getResourceAsStream("/union.json")), StandardCharsets.UTF_8);
+
+        var result = AvroJsonMapper.convertJsonStringToAvro(input, "io.confluent.ps.demo", TestUnionRecord.class);
+
+        var expectedModel = TestUnionRecord.newBuilder()
+                .setColor(Color.BLUE)
+                .setUnknownColor(Color.GREEN)
+                .setColors(List.of(Color.RED, Color.BLUE))
+                .setIntOrString(42)
+                .setStringOrInt("forty-two")
+                .setRecordOrString(EmbeddedRecord5.newBuilder().setValue("embedded-value").build())
+                .setBooleanOrDouble(4.2)
+                .build();
+
+        assertEquals(expectedModel, result);
+    }
+
+    @Test
+    void testEnumSymbols_perNamespace() {
+        var symbols = SchemaClassRegistry.enumSymbols("io.confluent.ps.demo", Color.getClassSchema());
+
+        assertSame(Color.BLUE, symbols.get("BLUE"));
+        // the table of a namespace is never served for another one
+        assertThrows(AvroJsonMapperException.class, () -> SchemaClassRegistry.enumSymbols("com.example.other", Color.getClassSchema()));
+    }
+
+    @Test
+    void testAvroToJson_unions() throws Exception {
+        var input = IOUtils.toString(Objects.requireNonNull(AvroJsonMapperTest.class.getResourceAsStream("/union.json")), StandardCharsets.UTF_8);
+        var record = AvroJsonMapper.convertJsonStringToAvro(input, "io.confluent.ps.demo", TestUnionRecord.class);
+
+        var json = AvroJsonMapper.convertAvroToJsonNode(record);
+        var result = AvroJsonMapper.convertJsonStringToAvro(json.toString(), "io.confluent.ps.demo", TestUnionRecord.class);
+
+        // the JSON token type carries the union branch, so every value is decoded back into its original branch
+        assertTrue(json.get("intOrString").isInt());
+        assertTrue(json.get("stringOrInt").isTextual());
+        assertTrue(json.get("booleanOrDouble").isDouble());
+        assertEquals(record, result);
+    }
+
+    @Test
+    void testAvroToJson_stringOrTimestampUnion() {
+        var timestamp = TestUnionRecord.newBuilder()
+                .setStringOrTimestamp(Instant.parse("2023-11-14T22:13:20Z"))
+                .build();
+        var text = TestUnionRecord.newBuilder()
+                .setStringOrTimestamp("2023-11-14T22:13:20Z")
+                .build();
+
+        var timestampJson = AvroJsonMapper.convertAvroToJsonNode(timestamp);
+        var textJson = AvroJsonMapper.convertAvroToJsonNode(text);
+
+        // the timestamp is written as epoch milliseconds, so it is not mistaken for the string branch
+        assertEquals(1700000000000L, timestampJson.get("stringOrTimestamp").longValue());
+        assertTrue(textJson.get("stringOrTimestamp").isTextual());
+        assertEquals(timestamp, AvroJsonMapper.convertJsonStringToAvro(timestampJson.toString(), "io.confluent.ps.demo", TestUnionRecord.class));
+        assertEquals(text, AvroJsonMapper.convertJsonStringToAvro(textJson.toString(), "io.confluent.ps.demo", TestUnionRecord.class));
+    }
+
+    @Test
+    void testJsonMergePatch() throws Exception {
+        var input = IOUtils.toString(Objects.requireNonNull(AvroJsonMapperTest.class.getResourceAsStream("/arrays.json")), StandardCharsets.UTF_8);
+        var record = AvroJsonMapper.convertJsonStringToAvro(input, "io.confluent.ps.demo", TestArrayRecord.class);
+        var embeddedRecord = record.getEmbeddedRecord();
+
+        var result = AvroJsonMapper.applyJsonMergePatch(record, "{\"embedded\": {\"field1\": null, \"field2\": {\"value\": \"field2-patched\"}, \"unmapped\": 1}}", "io.confluent.ps.demo");
 
+        var expectedModel = TestArrayRecord.newBuilder()
+                .setEmbeddedRecord(EmbeddedRecord3.newBuilder()
+                        .setField2("field2-patched")
+                        .build())
+                .build();
+
+        assertEquals(expectedModel, result);
+        assertSame(embeddedRecord, result.getEmbeddedRecord());
+    }
+
+    @Test
+    void testJsonPatch() throws Exception {
+        var input = IOUtils.toString(Objects.requireNonNull(AvroJsonMapperTest.class.getResourceAsStream("/arrays.json")), StandardCharsets.UTF_8);
+        var record = AvroJsonMapper.convertJsonStringToAvro(input, "io.confluent.ps.demo", TestArrayRecord.class);
+
+        var result = AvroJsonMapper.applyJsonPatch(record, """
+                [
+                  {"op": "replace", "path": "/embedded/field1/values/0/value", "value": "field1-patched"},
+                  {"op": "add", "path": "/embedded/field1/values/-", "value": {"value": "field1-value3"}},
+                  {"op": "remove", "path": "/embedded/field1/values/1"},
+                  {"op": "replace", "path": "/embedded/field2", "value": {"value": "field2-patched"}}
+                ]""", "io.confluent.ps.demo");
+
+        var expectedModel = TestArrayRecord.newBuilder()
+                .setEmbeddedRecord(EmbeddedRecord3.newBuilder()
+                        .setField1Values(List.of("field1-patched", "field1-value3"))
+                        .setField2("field2-patched")
+                        .build())
+                .build();
+
+        assertEquals(expectedModel, result);
+    }
+
+    @Test
+    void testJsonPatch_atomic() throws Exception {
+        var input = IOUtils.toString(Objects.requireNonNull(AvroJsonMapperTest.class.getResourceAsStream("/arrays.json")), StandardCharsets.UTF_8);
+        var record = AvroJsonMapper.convertJsonStringToAvro(input, "io.confluent.ps.demo", TestArrayRecord.class);
+        var original = TestArrayRecord.newBuilder(record).build();
+
+        // rejected before anything is applied
+        assertThrows(AvroJsonMapperException.class, () -> AvroJsonMapper.applyJsonPatch(record, """
+                [
+                  {"op": "replace", "path": "/embedded/field2", "value": {"value": "field2-patched"}},
+                  {"op": "move", "from": "/embedded/field2", "path": "/embedded/field3"}
+                ]""", "io.confluent.ps.demo"));
+        assertEquals(original, record);
+
+        // failing while applied
+        assertThrows(AvroJsonMapperException.class, () -> AvroJsonMapper.applyJsonPatch(record, """
+                [
+                  {"op": "replace", "path": "/embedded/field2", "value": {"value": "field2-patched"}},
+                  {"op": "remove", "path": "/embedded/field1/values/5"}
+                ]""", "io.confluent.ps.demo"));
+        assertEquals(original, record);
+
+        // the items are not nullable, the value of an entry cannot be removed
+        assertThrows(AvroJsonMapperException.class, () -> AvroJsonMapper.applyJsonPatch(record, """
+                [
+                  {"op": "remove", "path": "/embedded/field1/values/0/value"}
+                ]""", "io.confluent.ps.demo"));
+        assertEquals(original, record);
+    }
+
+    @Test
+    void testJsonPatch_inPlace() throws Exception {
+        var input = IOUtils.toString(Objects.requireNonNull(AvroJsonMapperTest.class.getResourceAsStream("/arrays.json")), StandardCharsets.UTF_8);
+        var record = AvroJsonMapper.convertJsonStringToAvro(input, "io.confluent.ps.demo", TestArrayRecord.class);
+        var embeddedRecord = record.getEmbeddedRecord();
+        var values = embeddedRecord.getField1Values();
+
+        var result = AvroJsonMapper.applyJsonPatch(record, """
+                [
+                  {"op": "replace", "path": "/embedded/field1/values/0/value", "value": "field1-patched"},
+                  {"op": "add", "path": "/embedded/field1/values/-", "value": {"value": "field1-value3"}}
+                ]""", "io.confluent.ps.demo");
+
+        // the nested record and the array are updated in place
+        assertSame(record, result);
+        assertSame(embeddedRecord, result.getEmbeddedRecord());
+        assertSame(values, embeddedRecord.getField1Values());
+        assertEquals(List.of("field1-patched", "field1-value2", "field1-value3"), values);
+
+        // and restored in place when an operation fails
+        assertThrows(AvroJsonMapperException.class, () -> AvroJsonMapper.applyJsonPatch(record, """
+                [
+                  {"op": "remove", "path": "/embedded/field1/values/0"},
+                  {"op": "replace", "path": "/embedded/field2", "value": {"value": "field2-patched"}},
+                  {"op": "remove", "path": "/embedded/field1/values/5"}
+                ]""", "io.confluent.ps.demo"));
+        assertSame(embeddedRecord, record.getEmbeddedRecord());
+        assertSame(values, embeddedRecord.getField1Values());
+        assertEquals(List.of("field1-patched", "field1-value2", "field1-value3"), values);
+        assertEquals("field2-value", embeddedRecord.getField2());
+    }
+
+    @Test
+    void testJsonPatch_immutableArrayAndTimestampUnion() {
+        var arrayRecord = TestArrayRecord.newBuilder()
+                .setEmbeddedRecord(EmbeddedRecord3.newBuilder().setField1Values(List.of("value1")).build())
+                .build();
+
+        AvroJsonMapper.applyJsonPatch(arrayRecord, """
+                [{"op": "add", "path": "/embedded/field1/values/0", "value": {"value": "value0"}}]""", "io.confluent.ps.demo");
+
+        assertEquals(List.of("value0", "value1"), arrayRecord.getEmbeddedRecord().getField1Values());
+
+        var unionRecord = TestUnionRecord.newBuilder()
+                .setStringOrTimestamp(Instant.ofEpochMilli(1000))
+                .build();
+
+        AvroJsonMapper.applyJsonPatch(unionRecord, """
+                [{"op": "replace", "path": "/intOrString", "value": 42}]""", "io.confluent.ps.demo");
+
+        assertEquals(42, unionRecord.getIntOrString());
+        assertEquals(Instant.ofEpochMilli(1000), unionRecord.getStringOrTimestamp());
+    }
+
+    @Test
+    void testWarmUp() {
+        var result = AvroJsonMapper.warmUp("io.confluent.ps.demo", TestArrayRecord.class, TestSkipLevelRecord.class);
+
+        assertEquals(Set.of(TestArrayRecord.class, EmbeddedRecord3.class, TestSkipLevelRecord.class, EmbeddedRecord2.class), result);
+    }
+
+    @Test
+    void testNativeImageConfig() {
+        var result = NativeImageConfigGenerator.buildReflectConfig("io.confluent.ps.demo", List.of(TestBasicRecord.class));
+
+        assertEquals(2, result.size());
+        assertEquals(TestBasicRecord.class.getName(), result.get(0).get("name").textValue());
+        assertEquals(EmbeddedRecord.class.getName(), result.get(1).get("name").textValue());
+        assertTrue(result.get(1).get("allDeclaredConstructors").booleanValue());
+    }
 
 
 